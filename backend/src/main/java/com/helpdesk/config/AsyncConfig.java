@@ -0,0 +1,41 @@
+package com.helpdesk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors and scheduling for AI work that runs off the request thread.
+ * The pool and its queue are bounded so a burst of tickets cannot pile up
+ * unbounded background work; rejected tasks are reported to the caller.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${ai.executor.core-pool-size:4}")
+    private int corePoolSize;
+
+    @Value("${ai.executor.max-pool-size:8}")
+    private int maxPoolSize;
+
+    @Value("${ai.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor aiTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-task-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,47 @@
+package com.helpdesk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP client configuration for the Gemini API.
+ * A single shared client keeps a pool of HTTP/2 connections open to Gemini,
+ * so calls no longer pay for a new connection (and TLS handshake) each time.
+ */
+@Configuration
+public class GeminiClientConfig {
+
+    @Value("${gemini.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${gemini.client-threads:4}")
+    private int clientThreads;
+
+    @Bean
+    public ExecutorService geminiHttpExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "gemini-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(clientThreads, threadFactory);
+    }
+
+    @Bean
+    public HttpClient geminiHttpClient(ExecutorService geminiHttpExecutor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(geminiHttpExecutor)
+                .build();
+    }
+}
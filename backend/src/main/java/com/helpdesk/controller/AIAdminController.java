@@ -0,0 +1,98 @@
+package com.helpdesk.controller;
+
+import com.helpdesk.config.RequireRole;
+import com.helpdesk.dto.ApiResponse;
+import com.helpdesk.model.PatternLog;
+import com.helpdesk.service.IncidentDetector;
+import com.helpdesk.service.KnowledgeDocSimilarityIndex;
+import com.helpdesk.service.PatternDetectionService;
+import com.helpdesk.service.RelevantDocumentCache;
+import com.helpdesk.service.RoutingCache;
+import com.helpdesk.service.SuggestionService;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.GeminiApiClient;
+import com.helpdesk.util.GeminiCircuitBreaker;
+import com.helpdesk.util.GeminiRequestScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller for admin-only inspection and maintenance of the AI pipeline
+ */
+@RestController
+@RequestMapping("/admin/ai")
+@RequiredArgsConstructor
+@Slf4j
+public class AIAdminController {
+
+    private final AIMetrics aiMetrics;
+    private final RoutingCache routingCache;
+    private final SuggestionService suggestionService;
+    private final GeminiApiClient geminiApiClient;
+    private final GeminiRequestScheduler geminiRequestScheduler;
+    private final GeminiCircuitBreaker geminiCircuitBreaker;
+    private final PatternDetectionService patternDetectionService;
+    private final IncidentDetector incidentDetector;
+    private final KnowledgeDocSimilarityIndex knowledgeDocSimilarityIndex;
+    private final RelevantDocumentCache relevantDocumentCache;
+
+    /**
+     * Get AI pipeline counters - only accessible to admins
+     * @return Counters and cache statistics
+     */
+    @GetMapping("/metrics")
+    @RequireRole("ADMIN")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("counters", aiMetrics.snapshot());
+        metrics.put("routingCacheSize", routingCache.size());
+        metrics.put("suggestionCacheSize", suggestionService.size());
+        metrics.put("incidentTrackedKeys", incidentDetector.trackedKeys());
+        metrics.put("knowledgeDocIndexSize", knowledgeDocSimilarityIndex.size());
+        metrics.put("relevantDocumentCacheSize", relevantDocumentCache.size());
+        metrics.put("inFlightGeminiCalls", geminiApiClient.getInFlightCallCount());
+        metrics.put("geminiTasks", geminiApiClient.taskSnapshot());
+        metrics.put("geminiQueueDepth", geminiRequestScheduler.getQueueDepth());
+        metrics.put("circuitBreaker", geminiCircuitBreaker.snapshot());
+        return ResponseEntity.ok(ApiResponse.success(metrics, "AI metrics retrieved"));
+    }
+
+    /**
+     * Get the Gemini circuit breaker and bulkhead state - only accessible to admins
+     * @return Breaker state, failure and slow call rates, active calls
+     */
+    @GetMapping("/circuit-breaker")
+    @RequireRole("ADMIN")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCircuitBreaker() {
+        return ResponseEntity.ok(ApiResponse.success(geminiCircuitBreaker.snapshot(), "Circuit breaker state retrieved"));
+    }
+
+    /**
+     * Flush the AI routing cache - only accessible to admins
+     * @return Number of entries removed
+     */
+    @DeleteMapping("/routing-cache")
+    @RequireRole("ADMIN")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> flushRoutingCache() {
+        int removed = routingCache.clear();
+        log.info("Routing cache flushed by admin");
+        return ResponseEntity.ok(ApiResponse.success(Map.of("removed", removed), "Routing cache flushed"));
+    }
+
+    /**
+     * Run pattern detection over the tickets created since the last stored window - only accessible to admins
+     * @return The stored pattern log, or null when there were no new tickets
+     */
+    @PostMapping("/patterns/run")
+    @RequireRole("ADMIN")
+    public ResponseEntity<ApiResponse<PatternLog>> runPatternDetection() {
+        PatternLog patternLog = patternDetectionService.runOnce();
+        return ResponseEntity.ok(ApiResponse.success(patternLog,
+                patternLog != null ? "Pattern detection window stored" : "No new tickets to analyze"));
+    }
+}
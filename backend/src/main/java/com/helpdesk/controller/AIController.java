@@ -2,6 +2,7 @@ package com.helpdesk.controller;
 
 import com.helpdesk.dto.ApiResponse;
 import com.helpdesk.service.AIService;
+import com.helpdesk.service.KnowledgeDocSimilarityIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,7 @@ import java.util.Map;
 public class AIController {
     
     private final AIService aiService;
+    private final KnowledgeDocSimilarityIndex knowledgeDocSimilarityIndex;
     
     @PostMapping("/route-ticket")
     public ResponseEntity<ApiResponse<Map<String, Object>>> routeTicket(
@@ -86,4 +88,19 @@ public class AIController {
         
         return ResponseEntity.ok(ApiResponse.success(patterns, "Ticket patterns detected"));
     }
+    
+    /**
+     * Finds the knowledge base documents closest in meaning to the given text, e.g. a ticket or a question
+     */
+    @PostMapping("/similar-documents")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPPORT')")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> findSimilarDocuments(
+            @RequestBody Map<String, Object> request) {
+        
+        String text = String.valueOf(request.getOrDefault("text", ""));
+        int limit = request.get("limit") instanceof Number number ? Math.min(number.intValue(), 50) : 5;
+        
+        List<Map<String, Object>> documents = knowledgeDocSimilarityIndex.findSimilarDocuments(text, limit);
+        return ResponseEntity.ok(ApiResponse.success(documents, "Similar knowledge documents found"));
+    }
 }
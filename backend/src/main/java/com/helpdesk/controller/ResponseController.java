@@ -5,13 +5,18 @@ import com.helpdesk.service.ResponseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
 
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/responses")
@@ -19,6 +24,8 @@ import java.util.NoSuchElementException;
 @Slf4j
 public class ResponseController {
 
+    private static final long SUGGESTION_STREAM_TIMEOUT_MS = 30_000;
+
     private final ResponseService responseService;
 
     /**
@@ -87,6 +94,41 @@ public class ResponseController {
         }
     }
 
+    /**
+     * Stream AI-suggested responses for a ticket as server-sent events. Each suggestion is
+     * pushed as a "suggestion" event once fully generated, followed by a final "done" event.
+     *
+     * @param ticketId The ticket ID
+     * @return Event stream of suggestions
+     */
+    @GetMapping(value = "/ticket/{ticketId}/suggestions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('SUPPORT', 'ADMIN')")
+    public ResponseEntity<SseEmitter> streamSuggestedResponses(@PathVariable String ticketId) {
+        SseEmitter emitter = new SseEmitter(SUGGESTION_STREAM_TIMEOUT_MS);
+        AtomicInteger index = new AtomicInteger();
+        try {
+            responseService.streamSuggestedResponses(ticketId, suggestion ->
+                            send(emitter, "suggestion", Map.of("index", index.getAndIncrement(), "text", suggestion)))
+                    .whenComplete((suggestions, e) -> {
+                        send(emitter, "done", Map.of("count", index.get()));
+                        emitter.complete();
+                    });
+            return ResponseEntity.ok(emitter);
+        } catch (NoSuchElementException e) {
+            log.error("Error streaming suggested responses for ticket ID: {}", ticketId, e);
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the remaining suggestions are simply dropped
+            log.debug("Could not send {} event: {}", eventName, e.getMessage());
+        }
+    }
+
     /**
      * Delete a response
      *
@@ -0,0 +1,47 @@
+package com.helpdesk.exception;
+
+/**
+ * Raised when a call to the Gemini API fails or returns an unusable response.
+ * Carries the HTTP status code when one was received (0 otherwise) and the
+ * delay requested by a {@code Retry-After} header (-1 when absent).
+ */
+public class GeminiApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final long retryAfterMs;
+
+    public GeminiApiException(String message) {
+        this(message, 0);
+    }
+
+    public GeminiApiException(String message, int statusCode) {
+        this(message, statusCode, -1);
+    }
+
+    public GeminiApiException(String message, int statusCode, long retryAfterMs) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public GeminiApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryAfterMs = -1;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    /**
+     * @return true for rate limiting (429) and server side (5xx) failures
+     */
+    public boolean isRetryableStatus() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
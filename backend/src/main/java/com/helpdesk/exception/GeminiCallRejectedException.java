@@ -0,0 +1,12 @@
+package com.helpdesk.exception;
+
+/**
+ * Raised when the circuit breaker or the bulkhead rejects a Gemini call before anything is sent,
+ * so the rate limit token taken for it can be given back.
+ */
+public class GeminiCallRejectedException extends GeminiApiException {
+
+    public GeminiCallRejectedException(String message) {
+        super(message);
+    }
+}
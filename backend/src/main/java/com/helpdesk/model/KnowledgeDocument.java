@@ -10,6 +10,7 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -54,6 +55,12 @@ public class KnowledgeDocument {
     @Builder.Default
     private boolean published = false;
     
+    /**
+     * Relevance to the search that returned this document; only set on search results, never stored
+     */
+    @TextScore
+    private Float score;
+    
     /**
      * Types of knowledge documents
      */
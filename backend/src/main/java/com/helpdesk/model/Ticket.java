@@ -62,6 +62,9 @@ public class Ticket {
     @Field("ai_confidence_score")
     private BigDecimal aiConfidenceScore;
     
+    @Field("routing_source")
+    private RoutingSource routingSource;
+    
     public enum Status {
         OPEN, IN_PROGRESS, RESOLVED, CLOSED
     }
@@ -69,4 +72,11 @@ public class Ticket {
     public enum Priority {
         LOW, MEDIUM, HIGH, CRITICAL
     }
+    
+    /**
+     * Where the ticket's category came from. Only GEMINI and MANUAL categories are trusted as training labels.
+     */
+    public enum RoutingSource {
+        GEMINI, LOCAL_CLASSIFIER, KEYWORD, MANUAL
+    }
 }
@@ -0,0 +1,40 @@
+package com.helpdesk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+/**
+ * Rolling summary of the older part of a ticket thread, keyed by ticket id.
+ * It covers the first {@code coveredResponses} responses; newer ones are folded in as they age out
+ * of the verbatim window of the suggestion prompt.
+ * {@code coveredHash} identifies the ids and contents of the covered responses, so an edited or deleted
+ * response invalidates the summary.
+ */
+@Document(collection = "ticket_thread_summaries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketThreadSummary {
+
+    @Id
+    private String ticketId;
+
+    private String summary;
+
+    @Field("covered_responses")
+    private int coveredResponses;
+
+    @Field("covered_hash")
+    private String coveredHash;
+
+    @Field("updated_at")
+    private Date updatedAt;
+}
@@ -2,6 +2,7 @@ package com.helpdesk.repository;
 
 import com.helpdesk.model.KnowledgeDocument;
 import com.helpdesk.model.Profile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -12,7 +13,7 @@ import java.util.List;
  * Repository for knowledge base documents
  */
 @Repository
-public interface KnowledgeDocumentRepository extends MongoRepository<KnowledgeDocument, String> {
+public interface KnowledgeDocumentRepository extends MongoRepository<KnowledgeDocument, String>, KnowledgeDocumentRepositoryCustom {
     
     // Find documents by department
     List<KnowledgeDocument> findByDepartment(Profile.Department department);
@@ -32,6 +33,12 @@ public interface KnowledgeDocumentRepository extends MongoRepository<KnowledgeDo
     // Find documents by department and published status
     List<KnowledgeDocument> findByDepartmentAndPublished(Profile.Department department, boolean published);
     
+    // Most recently updated documents of a department, one page of them
+    List<KnowledgeDocument> findByDepartmentAndPublishedOrderByUpdatedAtDesc(
+            Profile.Department department, 
+            boolean published, 
+            Pageable pageable);
+    
     // Text search in title and content
     @Query("{ $text: { $search: ?0 } }")
     List<KnowledgeDocument> searchByText(String searchText);
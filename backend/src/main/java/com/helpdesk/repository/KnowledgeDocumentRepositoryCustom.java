@@ -0,0 +1,23 @@
+package com.helpdesk.repository;
+
+import com.helpdesk.model.KnowledgeDocument;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Knowledge document queries that derived query methods cannot express
+ */
+public interface KnowledgeDocumentRepositoryCustom {
+
+    /**
+     * Single {@code $text} query matching any of the terms, ranked by MongoDB's text score.
+     * Documents of every department are ranked, since a ticket's category may still be provisional.
+     *
+     * @param terms Search terms, ORed together
+     * @param limit Maximum number of documents
+     * @param publishedOnly Whether to return only published documents
+     * @return Matching documents with their {@code score} set, best first
+     */
+    List<KnowledgeDocument> searchRanked(Collection<String> terms, int limit, boolean publishedOnly);
+}
@@ -0,0 +1,33 @@
+package com.helpdesk.repository;
+
+import com.helpdesk.model.KnowledgeDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class KnowledgeDocumentRepositoryCustomImpl implements KnowledgeDocumentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<KnowledgeDocument> searchRanked(Collection<String> terms, int limit, boolean publishedOnly) {
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Separate terms in one $search string are ORed; the published filter runs in the same query
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matchingAny(terms.toArray(String[]::new)))
+                .sortByScore()
+                .limit(limit);
+        if (publishedOnly) {
+            query.addCriteria(Criteria.where("published").is(true));
+        }
+        return mongoTemplate.find(query, KnowledgeDocument.class);
+    }
+}
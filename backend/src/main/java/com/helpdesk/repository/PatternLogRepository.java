@@ -2,13 +2,22 @@ package com.helpdesk.repository;
 
 import com.helpdesk.model.PatternLog;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.Date;
 import java.util.List;
 
 @Repository
 public interface PatternLogRepository extends MongoRepository<PatternLog, String> {
     List<PatternLog> findByPatternType(String patternType);
     List<PatternLog> findByCreatedAtBetween(OffsetDateTime start, OffsetDateTime end);
+    
+    // Newest log of a type; ids grow with insertion time
+    PatternLog findFirstByPatternTypeOrderByIdDesc(String patternType);
+    
+    // Logs of a type whose analyzed window starts at or after the given time, oldest first
+    @Query(value = "{ 'pattern_type': ?0, 'metadata.windowStart': { $gte: ?1 } }", sort = "{ '_id': 1 }")
+    List<PatternLog> findWindowsStartingSince(String patternType, Date since);
 }
@@ -0,0 +1,9 @@
+package com.helpdesk.repository;
+
+import com.helpdesk.model.TicketThreadSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TicketThreadSummaryRepository extends MongoRepository<TicketThreadSummary, String> {
+}
@@ -1,17 +1,36 @@
 package com.helpdesk.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.helpdesk.model.Profile;
+import com.helpdesk.model.Ticket;
+import com.helpdesk.service.dto.PatternAnalysis;
+import com.helpdesk.service.dto.RoutingDecision;
+import com.helpdesk.service.dto.SuggestionResult;
+import com.helpdesk.service.dto.ThreadSummaryUpdate;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.AITask;
 import com.helpdesk.util.GeminiApiClient;
+import com.helpdesk.util.KeywordTicketRouter;
+import com.helpdesk.util.StreamingStringArrayParser;
+import com.helpdesk.util.StructuredOutput;
+import com.helpdesk.util.TokenEstimator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +38,28 @@ import java.util.Map;
 public class AIService {
 
     private final GeminiApiClient geminiApiClient;
+    private final ObjectMapper objectMapper;
+    private final RoutingCache routingCache;
+    private final RoutingBatcher routingBatcher;
+    private final TicketClassifier ticketClassifier;
+    private final AIMetrics aiMetrics;
+    private final PromptBudget promptBudget;
+
+    /**
+     * Suggestions come back as a bare JSON array of strings, which also lets them be parsed while streaming
+     */
+    private static final StructuredOutput<List<String>> SUGGESTIONS_OUTPUT = new StructuredOutput<>("suggestions",
+            StructuredOutput.array(StructuredOutput.string("A response suggestion of 2-5 sentences"), "Exactly 3 response suggestions"),
+            new TypeReference<>() {});
+
+    @Value("${ai.patterns.chunk-tokens:3000}")
+    private int patternChunkTokens;
+
+    @Value("${ai.patterns.ticket-tokens:200}")
+    private int patternTicketTokens;
+
+    @Value("${ai.patterns.max-parallel-chunks:4}")
+    private int patternMaxParallelChunks;
 
     /**
      * Analyzes ticket content and suggests the appropriate department
@@ -28,97 +69,96 @@ public class AIService {
      * @return Map containing department, confidence score, and reasoning
      */
     public Map<String, Object> routeTicket(String title, String description) {
-        Map<String, Object> result = new HashMap<>();
+        return routeTicketAsync(title, description).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #routeTicket(String, String)}.
+     * Tiers, cheapest first: routing cache, local classifier, Gemini, keyword fallback.
+     * Gemini is skipped entirely while its circuit breaker is open.
+     * The returned future never completes exceptionally: failures resolve to the keyword fallback.
+     *
+     * @param title Ticket title
+     * @param description Ticket description
+     * @return Future holding department, confidence score, and reasoning
+     */
+    public CompletableFuture<Map<String, Object>> routeTicketAsync(String title, String description) {
+        String cacheKey = routingCache.key(title, description);
+        Map<String, Object> cachedResult = routingCache.get(cacheKey);
+        if (cachedResult != null) {
+            return CompletableFuture.completedFuture(cachedResult);
+        }
         
-        try {
-            // Construct prompt for Gemini API
-            String prompt = String.format(
-                "Analyze this helpdesk ticket and determine which department it should be routed to.\n" +
-                "Available departments: IT, HR, ADMIN\n\n" +
-                "Ticket Title: %s\n" +
-                "Ticket Description: %s\n\n" +
-                "Respond with a JSON object containing:\n" +
-                "1. \"department\": The department this ticket should be routed to (IT, HR, or ADMIN)\n" +
-                "2. \"confidenceScore\": A number between 0 and 1 indicating your confidence (e.g., 0.85)\n" +
-                "3. \"reasoning\": A brief explanation of why you chose this department\n\n" +
-                "Example response format:\n" +
-                "{\n" +
-                "  \"department\": \"IT\",\n" +
-                "  \"confidenceScore\": 0.92,\n" +
-                "  \"reasoning\": \"This ticket is about a computer hardware issue which falls under IT's responsibility.\"\n" +
-                "}\n", title, description);
-            
-            JsonNode responseJson = geminiApiClient.generateStructuredContent(prompt);
-            
-            if (responseJson != null) {
-                String department = responseJson.path("department").asText();
-                double confidenceScore = responseJson.path("confidenceScore").asDouble();
-                String reasoning = responseJson.path("reasoning").asText();
-                
-                // Convert string department to enum
-                Profile.Department departmentEnum;
-                try {
-                    departmentEnum = Profile.Department.valueOf(department);
-                } catch (IllegalArgumentException e) {
-                    // Default to ADMIN if department is invalid
-                    departmentEnum = Profile.Department.ADMIN;
-                    log.warn("Invalid department '{}' returned from AI, defaulting to ADMIN", department);
-                }
-                
-                result.put("department", departmentEnum);
-                result.put("confidenceScore", new BigDecimal(String.valueOf(confidenceScore)));
-                result.put("reasoning", reasoning);
-            } else {
-                // Fallback to simple keyword matching if AI fails
-                return fallbackRouteTicket(title, description);
-            }
-        } catch (Exception e) {
-            log.error("Error in AI ticket routing", e);
-            // Fallback to simple keyword matching if AI fails
-            return fallbackRouteTicket(title, description);
+        Optional<Map<String, Object>> localResult = ticketClassifier.classify(title, description);
+        if (localResult.isPresent()) {
+            aiMetrics.increment("routing.tier.local");
+            return CompletableFuture.completedFuture(localResult.get());
         }
         
+        if (!geminiApiClient.isAvailable()) {
+            aiMetrics.increment("routing.tier.keyword");
+            return CompletableFuture.completedFuture(fallbackRouteTicket(title, description));
+        }
+        
+        aiMetrics.increment("routing.tier.gemini");
+        CompletableFuture<RoutingDecision> aiResponse = routingBatcher.isEnabled()
+                ? routingBatcher.submit(title, description)
+                : geminiApiClient.generateHedgedContentAsync(AITask.ROUTING, buildRoutingPrompt(title, description), RoutingDecision.OUTPUT);
+        
+        return aiResponse
+                .thenApply(this::toRoutingResult)
+                .thenApply(result -> {
+                    // Only AI results are cached; the keyword fallback is cheap and should be retried with AI later
+                    routingCache.put(cacheKey, result);
+                    return result;
+                })
+                .exceptionally(e -> {
+                    log.error("Error in AI ticket routing", e);
+                    aiMetrics.increment("routing.tier.keyword");
+                    // Fallback to simple keyword matching if AI fails
+                    return fallbackRouteTicket(title, description);
+                });
+    }
+
+    private String buildRoutingPrompt(String title, String description) {
+        // Construct prompt for Gemini API
+        return String.format(
+            "Analyze this helpdesk ticket and determine which department it should be routed to.\n" +
+            "Available departments: IT, HR, ADMIN\n\n" +
+            "Ticket Title: %s\n" +
+            "Ticket Description: %s\n", title, description);
+    }
+
+    private Map<String, Object> toRoutingResult(RoutingDecision decision) {
+        Map<String, Object> result = new HashMap<>();
+
+        String department = String.valueOf(decision.getDepartment());
+        double confidenceScore = decision.getConfidenceScore() != null ? decision.getConfidenceScore() : 0.0;
+        String reasoning = decision.getReasoning();
+
+        // Convert string department to enum
+        Profile.Department departmentEnum;
+        try {
+            departmentEnum = Profile.Department.valueOf(department);
+        } catch (IllegalArgumentException e) {
+            // Default to ADMIN if department is invalid
+            departmentEnum = Profile.Department.ADMIN;
+            log.warn("Invalid department '{}' returned from AI, defaulting to ADMIN", department);
+        }
+
+        result.put("department", departmentEnum);
+        result.put("confidenceScore", new BigDecimal(String.valueOf(confidenceScore)));
+        result.put("reasoning", reasoning);
+        result.put("source", Ticket.RoutingSource.GEMINI);
         return result;
     }
     
     /**
      * Fallback method for ticket routing when AI fails
-     * Uses simple keyword matching
+     * Uses simple keyword matching; also provides the provisional category for asynchronously routed tickets
      */
-    private Map<String, Object> fallbackRouteTicket(String title, String description) {
-        String combinedText = (title + " " + description).toLowerCase();
-        
-        Map<String, Object> result = new HashMap<>();
-        
-        if (combinedText.contains("computer") || 
-            combinedText.contains("laptop") || 
-            combinedText.contains("software") || 
-            combinedText.contains("password") || 
-            combinedText.contains("network") || 
-            combinedText.contains("internet")) {
-            
-            result.put("department", Profile.Department.IT);
-            result.put("confidenceScore", new BigDecimal("0.85"));
-            result.put("reasoning", "Contains IT-related keywords like computer, software, network");
-            
-        } else if (combinedText.contains("salary") || 
-                  combinedText.contains("leave") || 
-                  combinedText.contains("vacation") || 
-                  combinedText.contains("benefits") || 
-                  combinedText.contains("hr") || 
-                  combinedText.contains("payroll")) {
-            
-            result.put("department", Profile.Department.HR);
-            result.put("confidenceScore", new BigDecimal("0.90"));
-            result.put("reasoning", "Contains HR-related keywords like salary, leave, benefits");
-            
-        } else {
-            result.put("department", Profile.Department.ADMIN);
-            result.put("confidenceScore", new BigDecimal("0.70"));
-            result.put("reasoning", "No specific department keywords found, routing to Admin as default");
-        }
-        
-        return result;
+    public Map<String, Object> fallbackRouteTicket(String title, String description) {
+        return KeywordTicketRouter.route(title, description);
     }
 
     /**
@@ -130,63 +170,239 @@ public class AIService {
      * @return List of suggested responses
      */
     public List<String> generateResponseSuggestions(String ticketTitle, String ticketDescription, List<String> previousResponses) {
-        try {
-            // Construct prompt for Gemini API
-            StringBuilder promptBuilder = new StringBuilder();
-            promptBuilder.append(String.format(
-                "Generate 3 helpful, professional response suggestions for a support agent responding to this helpdesk ticket:\n\n" +
-                "Ticket Title: %s\n" +
-                "Ticket Description: %s\n", ticketTitle, ticketDescription));
-            
-            // Add previous responses context if available
-            if (previousResponses != null && !previousResponses.isEmpty()) {
-                promptBuilder.append("\n\nPrevious responses in this ticket thread:\n");
-                for (int i = 0; i < previousResponses.size(); i++) {
-                    promptBuilder.append("Response %d: %s\n".formatted(i + 1, previousResponses.get(i)));
-                }
+        return generateResponseSuggestionsAsync(ticketTitle, ticketDescription, previousResponses).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #generateResponseSuggestions(String, String, List)}.
+     * Without a stored thread summary, responses that do not fit the prompt budget are left out, oldest first,
+     * and the prompt has no summary section.
+     * The returned future never completes exceptionally: failures resolve to the generic fallback.
+     */
+    public CompletableFuture<List<String>> generateResponseSuggestionsAsync(String ticketTitle, String ticketDescription, List<String> previousResponses) {
+        List<String> responses = previousResponses != null ? previousResponses : List.of();
+        int windowStart = promptBudget.recentWindowStart(responses, 0);
+        if (windowStart > 0) {
+            aiMetrics.increment("suggestions.responses_omitted");
+        }
+        return generateResponseSuggestionsAsync(ticketTitle, ticketDescription, null, responses.subList(windowStart, responses.size()));
+    }
+
+    /**
+     * Generates response suggestions from a budgeted view of the thread, see {@link ThreadContextBuilder}.
+     * The returned future never completes exceptionally: failures resolve to the generic fallback.
+     *
+     * @param ticketTitle Ticket title
+     * @param ticketDescription Ticket description
+     * @param threadSummary Summary of the responses before {@code recentResponses}, or null
+     * @param recentResponses Newest responses in the ticket thread, oldest first
+     * @return Future holding the suggested responses
+     */
+    public CompletableFuture<List<String>> generateResponseSuggestionsAsync(String ticketTitle, String ticketDescription,
+                                                                            String threadSummary, List<String> recentResponses) {
+        return generateSuggestionResultAsync(ticketTitle, ticketDescription, threadSummary, recentResponses)
+                .thenApply(SuggestionResult::getSuggestions);
+    }
+
+    /**
+     * Same as {@link #generateResponseSuggestionsAsync(String, String, String, List)}, but tells AI suggestions
+     * apart from the generic fallback, so callers caching the result can skip fallbacks.
+     * The returned future never completes exceptionally.
+     */
+    public CompletableFuture<SuggestionResult> generateSuggestionResultAsync(String ticketTitle, String ticketDescription,
+                                                                            String threadSummary, List<String> recentResponses) {
+        if (!geminiApiClient.isAvailable()) {
+            aiMetrics.increment("suggestions.fallback.circuit_open");
+            return CompletableFuture.completedFuture(new SuggestionResult(fallbackResponseSuggestions(ticketTitle, ticketDescription), true));
+        }
+        
+        String prompt = buildSuggestionPrompt(ticketTitle, ticketDescription, threadSummary, recentResponses);
+        return geminiApiClient.generateStructuredContentAsync(AITask.SUGGESTIONS, prompt, SUGGESTIONS_OUTPUT)
+                .thenApply(suggestions -> {
+                    // Ensure we have at least one suggestion
+                    if (suggestions != null && !suggestions.isEmpty()) {
+                        return new SuggestionResult(suggestions, false);
+                    }
+
+                    // Fallback to generic responses if AI fails
+                    return new SuggestionResult(fallbackResponseSuggestions(ticketTitle, ticketDescription), true);
+                })
+                .exceptionally(e -> {
+                    log.error("Error generating response suggestions", e);
+                    // Fallback to generic responses if AI fails
+                    return new SuggestionResult(fallbackResponseSuggestions(ticketTitle, ticketDescription), true);
+                });
+    }
+    
+    /**
+     * Streams response suggestions for a ticket, handing each one to {@code onSuggestion}
+     * as soon as Gemini has finished generating it. If the stream fails before producing
+     * any suggestion, the generic fallback suggestions are delivered through the callback instead.
+     *
+     * @param ticketTitle Ticket title
+     * @param ticketDescription Ticket description
+     * @param threadSummary Summary of the responses before {@code recentResponses}, or null
+     * @param recentResponses Newest responses in the ticket thread, oldest first
+     * @param onSuggestion Receives each suggestion, possibly on an HTTP client thread
+     * @return Future holding every delivered suggestion; never completes exceptionally
+     */
+    public CompletableFuture<List<String>> streamResponseSuggestions(String ticketTitle, String ticketDescription,
+                                                                     String threadSummary, List<String> recentResponses,
+                                                                     Consumer<String> onSuggestion) {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        Consumer<String> deliver = suggestion -> {
+            delivered.add(suggestion);
+            onSuggestion.accept(suggestion);
+        };
+
+        CompletableFuture<Void> stream;
+        if (geminiApiClient.isAvailable()) {
+            StreamingStringArrayParser parser = new StreamingStringArrayParser(objectMapper.getFactory());
+            stream = geminiApiClient.streamContentAsync(AITask.SUGGESTIONS,
+                    buildSuggestionPrompt(ticketTitle, ticketDescription, threadSummary, recentResponses),
+                    SUGGESTIONS_OUTPUT,
+                    chunk -> parser.feed(chunk).forEach(deliver));
+        } else {
+            aiMetrics.increment("suggestions.fallback.circuit_open");
+            stream = CompletableFuture.completedFuture(null);
+        }
+
+        return stream
+                .exceptionally(e -> {
+                    log.error("Error streaming response suggestions", e);
+                    return null;
+                })
+                .thenApply(ignored -> {
+                    if (delivered.isEmpty()) {
+                        // Fallback to generic responses if AI fails
+                        fallbackResponseSuggestions(ticketTitle, ticketDescription).forEach(deliver);
+                    }
+                    return List.copyOf(delivered);
+                });
+    }
+
+    private String buildSuggestionPrompt(String ticketTitle, String ticketDescription,
+                                         String threadSummary, List<String> recentResponses) {
+        // Construct prompt for Gemini API, every part capped by the prompt budget
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append(String.format(
+            "Generate 3 helpful, professional response suggestions for a support agent responding to this helpdesk ticket:\n\n" +
+            "Ticket Title: %s\n" +
+            "Ticket Description: %s\n", ticketTitle, promptBudget.fitDescription(ticketDescription)));
+        
+        if (threadSummary != null && !threadSummary.isBlank()) {
+            promptBuilder.append("\n\nSummary of the earlier conversation in this ticket thread:\n")
+                    .append(promptBudget.fitSummary(threadSummary))
+                    .append("\n");
+        }
+        
+        // Add previous responses context if available
+        if (recentResponses != null && !recentResponses.isEmpty()) {
+            promptBuilder.append(threadSummary != null
+                    ? "\n\nMost recent responses in this ticket thread:\n"
+                    : "\n\nPrevious responses in this ticket thread:\n");
+            for (int i = 0; i < recentResponses.size(); i++) {
+                promptBuilder.append("Response %d: %s\n".formatted(i + 1, promptBudget.fitMessage(recentResponses.get(i))));
             }
+        }
+        
+        promptBuilder.append("""
             
-            promptBuilder.append("""
-                
-                Respond with a JSON array containing exactly 3 response suggestions. Each suggestion should be:
-                - Professional and helpful
-                - Specific to the ticket content
-                - Between 2-5 sentences
-                - Include a clear next step or action item
-                
-                Example response format:
-                [
-                  "Thank you for reporting this issue. I've checked our system and can see that your account needs a password reset. Please check your email for reset instructions I've just sent.",
-                  "I understand you're having trouble accessing your account. I've reset your password and sent instructions to your registered email address. Please let me know if you're able to log in now.",
-                  "I've looked into your account access issue and have reset your credentials. You should receive an email shortly with instructions. If you don't receive it within 10 minutes, please check your spam folder and let me know."
-                ]
-                """);
-            
-            String prompt = promptBuilder.toString();
-            JsonNode responseJson = geminiApiClient.generateStructuredContent(prompt);
-            
-            if (responseJson != null && responseJson.isArray()) {
-                List<String> suggestions = new ArrayList<>();
-                for (JsonNode suggestion : responseJson) {
-                    suggestions.add(suggestion.asText());
-                }
-                
-                // Ensure we have at least one suggestion
-                if (!suggestions.isEmpty()) {
-                    return suggestions;
-                }
+            Each suggestion should be:
+            - Professional and helpful
+            - Specific to the ticket content
+            - Between 2-5 sentences
+            - Include a clear next step or action item
+            """);
+
+        return promptBuilder.toString();
+    }
+    
+    /**
+     * Folds new thread messages into a rolling summary. Large batches are folded in several calls,
+     * each within the summary input budget.
+     * The returned future never completes exceptionally: failures resolve to an extractive summary.
+     *
+     * @param previousSummary Summary of the earlier messages, or null
+     * @param newMessages Messages to add to the summary, oldest first
+     * @return Future holding the updated summary
+     */
+    public CompletableFuture<String> summarizeThreadAsync(String previousSummary, List<String> newMessages) {
+        CompletableFuture<String> summary = CompletableFuture.completedFuture(previousSummary);
+        List<String> chunk = new ArrayList<>();
+        int chunkTokens = 0;
+        for (String message : newMessages) {
+            String fitted = promptBudget.fitMessage(message);
+            int tokens = TokenEstimator.estimate(fitted);
+            if (!chunk.isEmpty() && chunkTokens + tokens > promptBudget.getSummaryInputTokens()) {
+                List<String> batch = List.copyOf(chunk);
+                summary = summary.thenCompose(current -> foldIntoSummary(current, batch));
+                chunk.clear();
+                chunkTokens = 0;
             }
+            chunk.add(fitted);
+            chunkTokens += tokens;
+        }
+        if (!chunk.isEmpty()) {
+            List<String> batch = List.copyOf(chunk);
+            summary = summary.thenCompose(current -> foldIntoSummary(current, batch));
+        }
+        return summary;
+    }
+
+    private CompletableFuture<String> foldIntoSummary(String previousSummary, List<String> messages) {
+        if (!geminiApiClient.isAvailable()) {
+            aiMetrics.increment("suggestions.summary.fallback");
+            return CompletableFuture.completedFuture(fallbackThreadSummary(previousSummary, messages));
+        }
+        
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append("You maintain a running summary of a helpdesk ticket conversation.\n\n");
+        promptBuilder.append("Current summary:\n")
+                .append(previousSummary != null ? previousSummary : "(none yet)")
+                .append("\n\nNew messages, oldest first:\n");
+        for (int i = 0; i < messages.size(); i++) {
+            promptBuilder.append("Message %d: %s\n".formatted(i + 1, messages.get(i)));
+        }
+        promptBuilder.append("""
             
-            // Fallback to generic responses if AI fails
-            return fallbackResponseSuggestions(ticketTitle, ticketDescription);
-            
-        } catch (Exception e) {
-            log.error("Error generating response suggestions", e);
-            // Fallback to generic responses if AI fails
-            return fallbackResponseSuggestions(ticketTitle, ticketDescription);
+            Update the summary so it also covers the new messages. Keep the facts, steps already tried,
+            promises made to the customer and open questions; drop greetings and repetition.
+            Use at most %d words.
+            """.formatted(promptBudget.getSummaryTokens() * 3 / 4));
+        
+        return geminiApiClient.generateStructuredContentAsync(AITask.SUGGESTIONS, promptBuilder.toString(), ThreadSummaryUpdate.OUTPUT)
+                .thenApply(update -> {
+                    String summary = update.getSummary();
+                    if (summary == null || summary.isBlank()) {
+                        return fallbackThreadSummary(previousSummary, messages);
+                    }
+                    return promptBudget.fitSummary(summary);
+                })
+                .exceptionally(e -> {
+                    log.error("Error summarizing ticket thread", e);
+                    aiMetrics.increment("suggestions.summary.fallback");
+                    return fallbackThreadSummary(previousSummary, messages);
+                });
+    }
+
+    /**
+     * Extractive summary: the opening of each message, dropping the oldest lines once over budget
+     */
+    private String fallbackThreadSummary(String previousSummary, List<String> messages) {
+        List<String> lines = new ArrayList<>();
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            lines.addAll(List.of(previousSummary.split("\n")));
+        }
+        for (String message : messages) {
+            lines.add("- " + TokenEstimator.truncate(message.strip().replaceAll("\\s+", " "), 40));
         }
+        while (lines.size() > 1 && TokenEstimator.estimate(String.join("\n", lines)) > promptBudget.getSummaryTokens()) {
+            lines.remove(0);
+        }
+        return promptBudget.fitSummary(String.join("\n", lines));
     }
-    
+
     /**
      * Fallback method for response suggestions when AI fails
      * Returns generic responses based on keywords
@@ -228,97 +444,130 @@ public class AIService {
      * @return Map containing detected pattern and affected systems
      */
     public Map<String, Object> detectPatterns(List<String> recentTickets) {
-        try {
-            if (recentTickets == null || recentTickets.isEmpty()) {
-                Map<String, Object> emptyResult = new HashMap<>();
-                emptyResult.put("patternDetected", false);
-                emptyResult.put("reason", "No tickets provided for analysis");
-                return emptyResult;
-            }
-            
-            // Construct prompt for Gemini API
-            StringBuilder promptBuilder = new StringBuilder();
-            promptBuilder.append(
-                "Analyze the following helpdesk tickets to identify any patterns or recurring issues:\n\n" +
-                "Recent Tickets:\n");
-            
-            // Add ticket descriptions
-            for (int i = 0; i < recentTickets.size(); i++) {
-                promptBuilder.append("Ticket %d: %s\n".formatted(i + 1, recentTickets.get(i)));
+        return detectPatternsAsync(recentTickets).join();
+    }
+
+    /**
+     * Non-blocking variant of {@link #detectPatterns(List)}.
+     * Large windows are split into chunks that are analyzed in parallel (admitted by the Gemini
+     * rate limiter) and merged deterministically by {@link PatternMerger}.
+     * The returned future never completes exceptionally: failures resolve to keyword counting, and a result
+     * that contains keyword counting for any chunk carries {@code "fallback": true}. Once a chunk has fallen
+     * back the chunks not yet sent are counted by keyword too, rather than spending more Gemini calls on a
+     * result that is degraded anyway.
+     */
+    public CompletableFuture<Map<String, Object>> detectPatternsAsync(List<String> recentTickets) {
+        if (recentTickets == null || recentTickets.isEmpty()) {
+            Map<String, Object> emptyResult = new HashMap<>();
+            emptyResult.put("patternDetected", false);
+            emptyResult.put("reason", "No tickets provided for analysis");
+            return CompletableFuture.completedFuture(emptyResult);
+        }
+        
+        if (!geminiApiClient.isAvailable()) {
+            aiMetrics.increment("patterns.fallback.circuit_open");
+            return CompletableFuture.completedFuture(fallbackPatternDetection(recentTickets));
+        }
+        
+        List<String> fittedTickets = recentTickets.stream()
+                .map(ticket -> TokenEstimator.truncate(ticket, patternTicketTokens))
+                .toList();
+        List<List<String>> chunks = PatternMerger.chunk(fittedTickets, TokenEstimator::estimate, patternChunkTokens);
+        if (chunks.size() == 1) {
+            return detectPatternsInChunk(fittedTickets);
+        }
+        
+        // Map: chunks run on a few parallel lanes so a large window does not flood the scheduler queue;
+        // reduce once every chunk has resolved, in chunk order
+        aiMetrics.add("patterns.chunks", chunks.size());
+        List<Map<String, Object>> partials = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        AtomicBoolean fellBack = new AtomicBoolean();
+        int lanes = Math.max(1, Math.min(patternMaxParallelChunks, chunks.size()));
+        List<CompletableFuture<Void>> laneFutures = new ArrayList<>();
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> laneFuture = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < chunks.size(); i += lanes) {
+                int index = i;
+                laneFuture = laneFuture
+                        .thenCompose(ignored -> fellBack.get()
+                                ? CompletableFuture.completedFuture(fallbackPatternDetection(chunks.get(index)))
+                                : detectPatternsInChunk(chunks.get(index)))
+                        .thenAccept(partial -> {
+                            if (isFallback(partial)) {
+                                fellBack.set(true);
+                            }
+                            synchronized (partials) {
+                                partials.set(index, partial);
+                            }
+                        });
             }
-            
-            promptBuilder.append("""
-                
-                Identify if there are any patterns or recurring issues in these tickets.
-                Respond with a JSON object containing:
-                
-                1. "patternDetected": boolean (true/false)
-                2. If patternDetected is true, include:
-                   - "issueType": The type of issue identified (e.g., "network", "email", "software")
-                   - "occurrences": Number of tickets related to this issue
-                   - "confidence": A number between 0 and 1 indicating your confidence in this pattern
-                   - "suggestedAction": What action should be taken to address this issue
-                   - "affectedSystems": Array of potentially affected systems
-                3. If patternDetected is false, include:
-                   - "reason": Why no pattern was detected
-                
-                Example response format:
-                {
-                  "patternDetected": true,
-                  "issueType": "network",
-                  "occurrences": 5,
-                  "confidence": 0.85,
-                  "suggestedAction": "Investigate potential network outage or performance issues",
-                  "affectedSystems": ["Corporate Network", "Internet Gateway", "DNS Servers"]
-                }
-                
-                OR
-                
-                {
-                  "patternDetected": false,
-                  "reason": "Tickets cover diverse unrelated issues with no clear pattern"
-                }
-                """);
-            
-            String prompt = promptBuilder.toString();
-            JsonNode responseJson = geminiApiClient.generateStructuredContent(prompt);
-            
-            if (responseJson != null) {
-                Map<String, Object> result = new HashMap<>();
-                
-                boolean patternDetected = responseJson.path("patternDetected").asBoolean(false);
-                result.put("patternDetected", patternDetected);
-                
-                if (patternDetected) {
-                    result.put("issueType", responseJson.path("issueType").asText());
-                    result.put("occurrences", responseJson.path("occurrences").asInt());
-                    result.put("confidence", responseJson.path("confidence").asDouble());
-                    result.put("suggestedAction", responseJson.path("suggestedAction").asText());
-                    
-                    // Convert affected systems array to List
-                    List<String> affectedSystems = new ArrayList<>();
-                    JsonNode systemsNode = responseJson.path("affectedSystems");
-                    if (systemsNode.isArray()) {
-                        for (JsonNode system : systemsNode) {
-                            affectedSystems.add(system.asText());
-                        }
+            laneFutures.add(laneFuture);
+        }
+        return CompletableFuture.allOf(laneFutures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    synchronized (partials) {
+                        return PatternMerger.merge(List.copyOf(partials), recentTickets.size());
                     }
-                    result.put("affectedSystems", affectedSystems);
-                } else {
-                    result.put("reason", responseJson.path("reason").asText("No clear pattern detected"));
-                }
-                
-                return result;
-            }
-            
-            // Fallback to simple pattern detection if AI fails
-            return fallbackPatternDetection(recentTickets);
+                });
+    }
+
+    /**
+     * Pattern analysis of a single prompt-sized batch of tickets; never completes exceptionally
+     */
+    private CompletableFuture<Map<String, Object>> detectPatternsInChunk(List<String> recentTickets) {
+        // Construct prompt for Gemini API
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append(
+            "Analyze the following helpdesk tickets to identify any patterns or recurring issues:\n\n" +
+            "Recent Tickets:\n");
+        
+        // Add ticket descriptions
+        for (int i = 0; i < recentTickets.size(); i++) {
+            promptBuilder.append("Ticket %d: %s\n".formatted(i + 1, recentTickets.get(i)));
+        }
+        
+        promptBuilder.append("""
             
-        } catch (Exception e) {
-            log.error("Error detecting patterns", e);
-            // Fallback to simple pattern detection if AI fails
-            return fallbackPatternDetection(recentTickets);
+            Identify if there are any patterns or recurring issues in these tickets.
+            If there is one, describe the issue type, how many tickets it affects, the suggested action
+            and the potentially affected systems; otherwise explain why no pattern was detected.
+            """);
+
+        String prompt = promptBuilder.toString();
+        return geminiApiClient.generateStructuredContentAsync(AITask.PATTERNS, prompt, PatternAnalysis.OUTPUT)
+                .thenApply(this::toPatternResult)
+                .exceptionally(e -> {
+                    log.error("Error detecting patterns", e);
+                    // Fallback to simple pattern detection if AI fails
+                    return fallbackPatternDetection(recentTickets);
+                });
+    }
+
+    /**
+     * @param patternResult Result of {@link #detectPatterns(List)}
+     * @return Whether the result was produced, wholly or partly, by keyword counting instead of Gemini
+     */
+    public static boolean isFallback(Map<String, Object> patternResult) {
+        return Boolean.TRUE.equals(patternResult.get("fallback"));
+    }
+
+    private Map<String, Object> toPatternResult(PatternAnalysis analysis) {
+        Map<String, Object> result = new HashMap<>();
+        
+        boolean patternDetected = analysis.isPatternDetected();
+        result.put("patternDetected", patternDetected);
+        
+        if (patternDetected) {
+            result.put("issueType", analysis.getIssueType());
+            result.put("occurrences", analysis.getOccurrences() != null ? analysis.getOccurrences() : 0);
+            result.put("confidence", analysis.getConfidence() != null ? analysis.getConfidence() : 0.0);
+            result.put("suggestedAction", analysis.getSuggestedAction());
+            result.put("affectedSystems", analysis.getAffectedSystems() != null ? analysis.getAffectedSystems() : List.of());
+        } else {
+            result.put("reason", analysis.getReason() != null ? analysis.getReason() : "No clear pattern detected");
         }
+        
+        return result;
     }
     
     /**
@@ -345,6 +594,7 @@ public class AIService {
         }
         
         Map<String, Object> result = new HashMap<>();
+        result.put("fallback", true);
         
         // Find the most common issue
         String mostCommonIssue = null;
@@ -25,7 +25,7 @@ public class DashboardService {
 
     private final TicketRepository ticketRepository;
     private final TicketResponseRepository responseRepository;
-    private final AIService aiService;
+    private final PatternDetectionService patternDetectionService;
 
     /**
      * Get overview metrics for the dashboard
@@ -123,37 +123,17 @@ public class DashboardService {
     }
 
     /**
-     * Get AI-detected patterns from recent tickets
+     * Get AI-detected patterns from recent tickets.
+     * Reads the windows stored by the scheduled pattern detection; no AI call is made here.
      *
      * @param days Number of days to look back
      * @return Map containing detected patterns
      */
     public Map<String, Object> getTicketPatterns(int days) {
-        OffsetDateTime cutoffDate = OffsetDateTime.now().minusDays(days);
-        
-        // Get tickets from the specified period
-        List<Ticket> recentTickets = ticketRepository.findAll().stream()
-                .filter(ticket -> ticket.getCreatedAt() != null && ticket.getCreatedAt().isAfter(cutoffDate))
-                .collect(Collectors.toList());
-        
-        // Extract ticket descriptions for pattern detection
-        List<String> ticketDescriptions = recentTickets.stream()
-                .map(Ticket::getDescription)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        
-        // Use AI service to detect patterns
-        if (ticketDescriptions.isEmpty()) {
-            Map<String, Object> emptyResult = new HashMap<>();
-            emptyResult.put("patterns", Collections.emptyList());
-            emptyResult.put("count", 0);
-            return emptyResult;
-        }
-        
         try {
-            return aiService.detectPatterns(ticketDescriptions);
+            return patternDetectionService.getStoredPatterns(days);
         } catch (Exception e) {
-            log.error("Error detecting patterns in tickets", e);
+            log.error("Error reading stored ticket patterns", e);
             Map<String, Object> fallbackResult = new HashMap<>();
             fallbackResult.put("patterns", Collections.emptyList());
             fallbackResult.put("count", 0);
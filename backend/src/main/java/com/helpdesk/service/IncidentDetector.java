@@ -0,0 +1,356 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.PatternLog;
+import com.helpdesk.model.Ticket;
+import com.helpdesk.repository.PatternLogRepository;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.TextTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming incident detector fed by every new ticket. For each term, bigram and department it keeps
+ * a ring of time buckets covering the detection window plus a baseline rate (an exponentially weighted
+ * average of closed buckets). When the window count of a key jumps well above its baseline, the spike is
+ * stored as a {@link PatternLog} and pushed to {@code /topic/incidents}; storing and pushing happen off the
+ * ticket creation thread. Buckets rotate lazily on the next ticket, so an idle detector costs nothing.
+ * Once {@code max-tracked-keys} keys are tracked, the coldest tenth of them is evicted to make room.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentDetector {
+
+    public static final String PATTERN_TYPE = "incident_spike";
+
+    private static final String DEPARTMENT_PREFIX = "department:";
+
+    private final MongoTemplate mongoTemplate;
+    private final PatternLogRepository patternLogRepository;
+    private final NotificationService notificationService;
+    private final AIMetrics aiMetrics;
+    private final ThreadPoolTaskExecutor aiTaskExecutor;
+
+    @Value("${ai.incidents.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.incidents.bucket-seconds:300}")
+    private long bucketSeconds;
+
+    /**
+     * Number of buckets in the detection window
+     */
+    @Value("${ai.incidents.window-buckets:6}")
+    private int windowBuckets;
+
+    /**
+     * Weight of each closed bucket in the baseline; 0.02 averages over roughly the last 50 buckets
+     */
+    @Value("${ai.incidents.baseline-alpha:0.02}")
+    private double baselineAlpha;
+
+    /**
+     * Lowest expected window count, so keys never seen before need more than a handful of tickets
+     */
+    @Value("${ai.incidents.baseline-floor:1.0}")
+    private double baselineFloor;
+
+    @Value("${ai.incidents.spike-ratio:4.0}")
+    private double spikeRatio;
+
+    @Value("${ai.incidents.min-count:5}")
+    private int minCount;
+
+    @Value("${ai.incidents.cooldown-minutes:60}")
+    private long cooldownMinutes;
+
+    @Value("${ai.incidents.max-tracked-keys:50000}")
+    private int maxTrackedKeys;
+
+    @Value("${ai.incidents.seed-hours:24}")
+    private int seedHours;
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    private long currentBucket = -1;
+
+    /**
+     * Seeds baselines and the current window from the tickets of the last hours, so a restart
+     * neither forgets an ongoing spike nor alerts on every common term
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedFromRecentTickets() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Query query = new Query(Criteria.where("_id").gt(new ObjectId(new Date(now - seedHours * 3_600_000L))));
+            query.fields().include("_id").include("title").include("description").include("category");
+            List<Ticket> tickets = mongoTemplate.find(query, Ticket.class);
+
+            long nowBucket = bucketOf(now);
+            long seedBuckets = Math.max(1, seedHours * 3600 / bucketSeconds - windowBuckets);
+            synchronized (this) {
+                advanceTo(nowBucket);
+                for (Ticket ticket : tickets) {
+                    if (!ObjectId.isValid(ticket.getId())) {
+                        continue;
+                    }
+                    long bucket = bucketOf(new ObjectId(ticket.getId()).getDate().getTime());
+                    boolean inWindow = bucket > nowBucket - windowBuckets;
+                    for (String key : keysOf(ticket)) {
+                        Counter counter = counterFor(key);
+                        if (counter == null) {
+                            continue;
+                        }
+                        if (inWindow) {
+                            counter.increment(bucket);
+                        } else {
+                            counter.baseline += 1.0 / seedBuckets;
+                        }
+                    }
+                }
+            }
+            log.info("Incident detector seeded from {} tickets, tracking {} keys", tickets.size(), trackedKeys());
+        } catch (Exception e) {
+            log.error("Error seeding incident detector", e);
+        }
+    }
+
+    /**
+     * Counts a new ticket and raises an incident if one of its terms or its department spikes
+     *
+     * @param ticket The newly created ticket
+     */
+    public void record(Ticket ticket) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Spike spike = count(ticket);
+            if (spike != null) {
+                raiseInBackground(spike, ticket);
+            }
+        } catch (Exception e) {
+            log.error("Error recording ticket {} in incident detector", ticket.getId(), e);
+        }
+    }
+
+    private void raiseInBackground(Spike spike, Ticket ticket) {
+        Runnable raise = () -> {
+            try {
+                raise(spike, ticket);
+            } catch (Exception e) {
+                log.error("Error raising incident for '{}'", spike.key, e);
+            }
+        };
+        try {
+            aiTaskExecutor.execute(raise);
+        } catch (TaskRejectedException e) {
+            // Incidents are rare and must not be lost, so a saturated executor falls back to this thread
+            aiMetrics.increment("incidents.raise_inline");
+            raise.run();
+        }
+    }
+
+    public synchronized int trackedKeys() {
+        return counters.size();
+    }
+
+    /**
+     * Increments every key of the ticket and returns the strongest key over the spike threshold.
+     * All spiking keys enter their cooldown, so one outage raises one incident, not one per word.
+     */
+    private synchronized Spike count(Ticket ticket) {
+        long now = System.currentTimeMillis();
+        long bucket = bucketOf(now);
+        advanceTo(bucket);
+
+        Spike strongest = null;
+        List<Counter> spiking = new ArrayList<>();
+        for (String key : keysOf(ticket)) {
+            Counter counter = counterFor(key);
+            if (counter == null) {
+                continue;
+            }
+            counter.increment(bucket);
+
+            double expected = Math.max(baselineFloor, counter.baseline * windowBuckets);
+            double ratio = counter.windowCount / expected;
+            if (counter.windowCount >= minCount && ratio >= spikeRatio && counter.cooldownUntil <= now) {
+                spiking.add(counter);
+                Spike spike = new Spike(key, counter.windowCount, expected, ratio);
+                if (strongest == null || spike.isStrongerThan(strongest)) {
+                    strongest = spike;
+                }
+            }
+        }
+        long cooldownUntil = now + cooldownMinutes * 60_000;
+        spiking.forEach(counter -> counter.cooldownUntil = cooldownUntil);
+        return strongest;
+    }
+
+    private void raise(Spike spike, Ticket ticket) {
+        boolean department = spike.key.startsWith(DEPARTMENT_PREFIX);
+        String subject = department ? spike.key.substring(DEPARTMENT_PREFIX.length()) : spike.key;
+        long windowMinutes = windowBuckets * bucketSeconds / 60;
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("kind", department ? "department" : "term");
+        metadata.put("key", subject);
+        metadata.put("windowCount", spike.windowCount);
+        metadata.put("expectedCount", Math.round(spike.expected * 100) / 100.0);
+        metadata.put("ratio", Math.round(spike.ratio * 100) / 100.0);
+        metadata.put("windowMinutes", windowMinutes);
+        metadata.put("detectedAt", new Date());
+        metadata.put("triggeringTicketId", ticket.getId());
+
+        PatternLog incident = patternLogRepository.save(PatternLog.builder()
+                .patternType(PATTERN_TYPE)
+                .description("Spike in %s '%s': %d tickets in %d minutes, %.1f expected".formatted(
+                        department ? "department" : "term", subject, spike.windowCount, windowMinutes, spike.expected))
+                .metadata(metadata)
+                .build());
+        aiMetrics.increment("incidents.detected");
+        notificationService.notifyIncidentDetected(incident);
+    }
+
+    /**
+     * Rotates all rings forward to the given bucket, folding every closed bucket into the baseline.
+     * After a gap longer than the ring, the remaining empty buckets only decay the baseline.
+     */
+    private void advanceTo(long bucket) {
+        if (currentBucket < 0) {
+            currentBucket = bucket;
+            return;
+        }
+        long steps = bucket - currentBucket;
+        if (steps <= 0) {
+            return;
+        }
+
+        long simulated = Math.min(steps, windowBuckets);
+        double idleDecay = Math.pow(1 - baselineAlpha, steps - simulated);
+        counters.values().removeIf(counter -> {
+            for (long b = currentBucket; b < currentBucket + simulated; b++) {
+                counter.baseline = (1 - baselineAlpha) * counter.baseline + baselineAlpha * counter.slot(b);
+                counter.clear(b + 1);
+            }
+            counter.baseline *= idleDecay;
+            return counter.windowCount == 0 && counter.baseline < 0.001;
+        });
+        currentBucket = bucket;
+    }
+
+    private Counter counterFor(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maxTrackedKeys && !evictColdest()) {
+                aiMetrics.increment("incidents.keys_dropped");
+                return null;
+            }
+            counter = new Counter(windowBuckets);
+            counters.put(key, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Evicts the tenth of the tracked keys with the lowest expected window count, so new keys can be tracked.
+     * Keys in their cooldown after an incident are kept. Evicting in batches keeps the scan rare.
+     *
+     * @return false if nothing could be evicted
+     */
+    private boolean evictColdest() {
+        int evictCount = Math.max(1, maxTrackedKeys / 10);
+        long now = System.currentTimeMillis();
+        List<String> coldest = counters.entrySet().stream()
+                .filter(entry -> entry.getValue().cooldownUntil <= now)
+                .sorted(Comparator.comparingDouble(entry -> entry.getValue().windowCount + entry.getValue().baseline * windowBuckets))
+                .limit(evictCount)
+                .map(Map.Entry::getKey)
+                .toList();
+        coldest.forEach(counters::remove);
+        aiMetrics.add("incidents.keys_evicted", coldest.size());
+        return !coldest.isEmpty();
+    }
+
+    /**
+     * Distinct terms and bigrams of the ticket text plus its department; each ticket counts once per key
+     */
+    private Set<String> keysOf(Ticket ticket) {
+        Set<String> keys = new LinkedHashSet<>(TextTokenizer.terms(
+                (ticket.getTitle() != null ? ticket.getTitle() : "") + " "
+                        + (ticket.getDescription() != null ? ticket.getDescription() : "")));
+        if (ticket.getCategory() != null) {
+            keys.add(DEPARTMENT_PREFIX + ticket.getCategory());
+        }
+        return keys;
+    }
+
+    private long bucketOf(long epochMillis) {
+        return epochMillis / (bucketSeconds * 1000);
+    }
+
+    /**
+     * Per-key ring of bucket counts; slot {@code b % length} holds bucket {@code b}
+     */
+    private static final class Counter {
+        private final int[] buckets;
+        private int windowCount;
+        private double baseline;
+        private long cooldownUntil;
+
+        private Counter(int windowBuckets) {
+            this.buckets = new int[windowBuckets];
+        }
+
+        private void increment(long bucket) {
+            buckets[(int) (bucket % buckets.length)]++;
+            windowCount++;
+        }
+
+        private int slot(long bucket) {
+            return buckets[(int) (bucket % buckets.length)];
+        }
+
+        private void clear(long bucket) {
+            int index = (int) (bucket % buckets.length);
+            windowCount -= buckets[index];
+            buckets[index] = 0;
+        }
+    }
+
+    private record Spike(String key, int windowCount, double expected, double ratio) {
+
+        /**
+         * Higher ratio wins; on a tie a bigram beats a single word because it is more specific
+         */
+        private boolean isStrongerThan(Spike other) {
+            if (ratio != other.ratio) {
+                return ratio > other.ratio;
+            }
+            return key.contains(" ") && !other.key.contains(" ");
+        }
+    }
+}
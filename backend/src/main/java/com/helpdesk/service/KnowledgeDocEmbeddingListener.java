@@ -0,0 +1,43 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.KnowledgeDoc;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link KnowledgeDoc} embeddings and the similarity index in step with every save and delete,
+ * whichever code path writes the document
+ */
+@Component
+@RequiredArgsConstructor
+public class KnowledgeDocEmbeddingListener extends AbstractMongoEventListener<KnowledgeDoc> {
+
+    private final KnowledgeDocSimilarityIndex similarityIndex;
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<KnowledgeDoc> event) {
+        // Title or content may have changed, and embedding is cheap
+        KnowledgeDoc doc = event.getSource();
+        doc.setEmbedding(similarityIndex.embed(doc));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<KnowledgeDoc> event) {
+        similarityIndex.upsert(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<KnowledgeDoc> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            similarityIndex.remove(id.toString());
+        } else {
+            // Deleted by an arbitrary query, so the removed ids are unknown; rebuilt in the background
+            similarityIndex.markDirty();
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.KnowledgeDoc;
+import com.helpdesk.repository.KnowledgeDocRepository;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.Embedder;
+import com.helpdesk.util.HnswIndex;
+import com.helpdesk.util.Int8Vectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic similarity search over {@link KnowledgeDoc}s. Each document's title and content are embedded
+ * by the configured {@link Embedder} and stored int8-quantized in its {@code embedding} field; an in-memory
+ * {@link HnswIndex} over those vectors answers top-k queries without touching MongoDB.
+ * The index is rebuilt from MongoDB at startup and kept current by {@link KnowledgeDocEmbeddingListener};
+ * full rebuilds (IDF refit, tombstone cleanup) run in the background once writes mark the index stale.
+ * A rebuild fits a new embedder and swaps it in together with the new graph, so queries and stored vectors
+ * always share their weights. Writes made while a rebuild runs are replayed against the new graph.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KnowledgeDocSimilarityIndex {
+
+    private final MongoTemplate mongoTemplate;
+    private final KnowledgeDocRepository knowledgeDocRepository;
+    /**
+     * The configured embedder before any fit; every rebuild fits a new instance from it into {@link #embedder}
+     */
+    private final Embedder baseEmbedder;
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.embeddings.hnsw.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${ai.embeddings.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${ai.embeddings.hnsw.ef-search:64}")
+    private int efSearch;
+
+    /**
+     * Share of removed nodes in the graph above which the next change triggers a rebuild
+     */
+    @Value("${ai.embeddings.hnsw.max-deleted-ratio:0.3}")
+    private double maxDeletedRatio;
+
+    /**
+     * Corpus growth since the last refit, as a share of its size then, that makes the IDF worth refitting
+     */
+    @Value("${ai.embeddings.refit-growth-ratio:0.2}")
+    private double refitGrowthRatio;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    /**
+     * Embedder whose weights the current graph was built with, null until the first rebuild
+     */
+    private Embedder embedder;
+    private boolean rebuilding;
+    /**
+     * Documents saved or deleted while a rebuild runs, replayed once its graph is swapped in
+     */
+    private final Set<String> changedDuringRebuild = new HashSet<>();
+    private int fittedCorpusSize;
+    private int addedSinceFit;
+    private HnswIndex index;
+    private final Map<String, Integer> nodeByDocId = new HashMap<>();
+    private final List<String> docIdByNode = new ArrayList<>();
+
+    /**
+     * Refits the embedder on the whole corpus, re-embeds every document with the new weights and rebuilds
+     * the graph. Weights stay fixed until the next refit, so stored and query vectors always share them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        dirty.set(false);
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long start = System.nanoTime();
+            Query query = new Query();
+            query.fields().include("_id").include("title").include("content").include("embedding");
+            List<KnowledgeDoc> docs = mongoTemplate.find(query, KnowledgeDoc.class);
+            Embedder fitted = baseEmbedder.fit(docs.stream().map(KnowledgeDocSimilarityIndex::textOf).toList());
+
+            // Only documents whose text is still the one embedded here; a newer save is replayed below
+            BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, KnowledgeDoc.class);
+            int embedded = 0;
+            for (KnowledgeDoc doc : docs) {
+                byte[] embedding = Int8Vectors.quantize(fitted.embed(textOf(doc)));
+                if (!Arrays.equals(embedding, doc.getEmbedding())) {
+                    doc.setEmbedding(embedding);
+                    updates.updateOne(unchangedText(doc), Update.update("embedding", embedding));
+                    embedded++;
+                }
+            }
+            if (embedded > 0) {
+                updates.execute();
+            }
+
+            HnswIndex rebuilt = new HnswIndex(maxConnections, efConstruction);
+            Map<String, Integer> rebuiltNodes = new HashMap<>();
+            List<String> rebuiltDocIds = new ArrayList<>();
+            for (KnowledgeDoc doc : docs) {
+                if (doc.getEmbedding() != null && doc.getEmbedding().length == fitted.dimensions()) {
+                    rebuiltNodes.put(doc.getId(), rebuilt.add(doc.getEmbedding()));
+                    rebuiltDocIds.add(doc.getId());
+                }
+            }
+
+            Set<String> replay;
+            lock.writeLock().lock();
+            try {
+                embedder = fitted;
+                index = rebuilt;
+                nodeByDocId.clear();
+                nodeByDocId.putAll(rebuiltNodes);
+                docIdByNode.clear();
+                docIdByNode.addAll(rebuiltDocIds);
+                fittedCorpusSize = docs.size();
+                addedSinceFit = 0;
+                rebuilding = false;
+                replay = new HashSet<>(changedDuringRebuild);
+                changedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            replay(replay);
+            aiMetrics.increment("knowledge.embeddings.rebuilds");
+            log.info("Built knowledge similarity index over {} documents ({} re-embedded, {} replayed) in {} ms",
+                    docs.size(), embedded, replay.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            dirty.set(true);
+            log.error("Error building knowledge similarity index, retrying on the next check", e);
+        }
+    }
+
+    /**
+     * Applies the saves and deletes made during a rebuild, from the documents' current state in MongoDB
+     */
+    private void replay(Set<String> docIds) {
+        if (docIds.isEmpty()) {
+            return;
+        }
+        Query query = new Query(Criteria.where("_id").in(docIds));
+        query.fields().include("_id").include("title").include("content").include("embedding");
+        Map<String, KnowledgeDoc> current = mongoTemplate.find(query, KnowledgeDoc.class).stream()
+                .collect(Collectors.toMap(KnowledgeDoc::getId, Function.identity()));
+        for (String docId : docIds) {
+            KnowledgeDoc doc = current.get(docId);
+            if (doc != null) {
+                upsert(doc);
+            } else {
+                remove(docId);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds in the background once writes have made the index stale, so writers never wait for
+     * a full scan of the collection
+     */
+    @Scheduled(fixedDelayString = "${ai.embeddings.rebuild-check-ms:60000}",
+               initialDelayString = "${ai.embeddings.rebuild-check-ms:60000}")
+    public void rebuildIfDirty() {
+        if (dirty.get()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Schedules a rebuild, e.g. after documents were deleted by a query whose ids are unknown
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * @return Quantized embedding of the document's title and content with the current weights
+     */
+    public byte[] embed(KnowledgeDoc doc) {
+        lock.readLock().lock();
+        try {
+            return Int8Vectors.quantize(currentEmbedder().embed(textOf(doc)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the document in the index; called after it has been saved. A document embedded
+     * with weights that were replaced before it got here is re-embedded and its stored vector updated.
+     */
+    public void upsert(KnowledgeDoc doc) {
+        if (doc.getId() == null) {
+            return;
+        }
+        byte[] embedding;
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.add(doc.getId());
+            }
+            if (index == null) {
+                return;
+            }
+            embedding = Int8Vectors.quantize(currentEmbedder().embed(textOf(doc)));
+            Integer previous = nodeByDocId.get(doc.getId());
+            if (previous != null) {
+                index.remove(previous);
+            } else {
+                addedSinceFit++;
+            }
+            insert(doc.getId(), embedding);
+            if (tooManyDeleted() || addedSinceFit > refitGrowthRatio * Math.max(10, fittedCorpusSize)) {
+                dirty.set(true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (!Arrays.equals(embedding, doc.getEmbedding())) {
+            doc.setEmbedding(embedding);
+            mongoTemplate.updateFirst(unchangedText(doc), Update.update("embedding", embedding), KnowledgeDoc.class);
+        }
+    }
+
+    public void remove(String docId) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.add(docId);
+            }
+            Integer node = nodeByDocId.remove(docId);
+            if (index != null && node != null) {
+                index.remove(node);
+                if (tooManyDeleted()) {
+                    dirty.set(true);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param text Text to find similar documents for, e.g. a ticket's title and description
+     * @param limit Maximum number of documents
+     * @return Id, title, category and similarity of the most similar documents, most similar first
+     */
+    public List<Map<String, Object>> findSimilarDocuments(String text, int limit) {
+        List<Match> matches;
+        lock.readLock().lock();
+        try {
+            // Same weights as the graph being searched
+            matches = findSimilar(Int8Vectors.quantize(currentEmbedder().embed(text)), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, KnowledgeDoc> docs = knowledgeDocRepository.findAllById(matches.stream().map(Match::docId).toList())
+                .stream()
+                .collect(Collectors.toMap(KnowledgeDoc::getId, Function.identity()));
+
+        List<Map<String, Object>> results = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            KnowledgeDoc doc = docs.get(match.docId());
+            if (doc == null) {
+                continue;
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", doc.getId());
+            result.put("title", doc.getTitle());
+            result.put("category", doc.getCategory());
+            result.put("similarity", Math.round(match.similarity() * 1000) / 1000.0);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * @param embedding Quantized query vector
+     * @param limit Maximum number of matches
+     * @return Ids and cosine similarities of the nearest documents, most similar first
+     */
+    public List<Match> findSimilar(byte[] embedding, int limit) {
+        lock.readLock().lock();
+        try {
+            if (index == null || embedding.length != currentEmbedder().dimensions()) {
+                return List.of();
+            }
+            return index.search(embedding, limit, efSearch).stream()
+                    .map(result -> new Match(docIdByNode.get(result.node()), result.similarity()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String docId, byte[] embedding) {
+        if (embedding == null || embedding.length != currentEmbedder().dimensions()) {
+            return;
+        }
+        int node = index.add(embedding);
+        docIdByNode.add(docId);
+        nodeByDocId.put(docId, node);
+    }
+
+    private Embedder currentEmbedder() {
+        return embedder != null ? embedder : baseEmbedder;
+    }
+
+    /**
+     * Matches the document only while its title and content are still those it was embedded from
+     */
+    private static Query unchangedText(KnowledgeDoc doc) {
+        return new Query(Criteria.where("_id").is(doc.getId())
+                .and("title").is(doc.getTitle())
+                .and("content").is(doc.getContent()));
+    }
+
+    private boolean tooManyDeleted() {
+        return index.deletedCount() > 10 && index.deletedCount() > maxDeletedRatio * (index.size() + index.deletedCount());
+    }
+
+    private static String textOf(KnowledgeDoc doc) {
+        return (doc.getTitle() != null ? doc.getTitle() : "") + " " + (doc.getContent() != null ? doc.getContent() : "");
+    }
+
+    /**
+     * @param docId Id of the matching document
+     * @param similarity Cosine similarity between the query and the document, at most 1
+     */
+    public record Match(String docId, double similarity) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.KnowledgeDocument;
+import com.helpdesk.repository.KnowledgeDocumentRepository;
+import com.helpdesk.util.Bm25Index;
+import com.helpdesk.util.TextTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory BM25 full-text index over {@link KnowledgeDocument} title, tags and content.
+ * Built from MongoDB at startup and updated by {@link KnowledgeService} on every create, update and delete,
+ * so a whole ticket can be matched against the knowledge base in one pass without database round trips.
+ * A failed build is retried on a schedule; until an index exists, {@link KnowledgeService} ranks with MongoDB.
+ * Updates that arrive while a build is reading the collection are recorded and applied to the new index
+ * once it is swapped in, so the build never loses them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KnowledgeSearchIndex {
+
+    /**
+     * Title and tag tokens are indexed this many times, so they outweigh the same words in the content
+     */
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+
+    private static final double UNKNOWN_WORD_WEIGHT = 0.05;
+
+    private final KnowledgeDocumentRepository knowledgeRepository;
+    private final RelevantDocumentCache relevantDocumentCache;
+
+    @Value("${knowledge.search.engine:memory}")
+    private String searchEngine;
+
+    @Value("${knowledge.search.bm25.k1:1.2}")
+    private float k1;
+
+    @Value("${knowledge.search.bm25.b:0.75}")
+    private float b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bm25Index index;
+    private final Map<String, Filterable> filterables = new HashMap<>();
+
+    /**
+     * Documents written while a build runs, by id, with null for a removal; null when no build runs
+     */
+    private Map<String, KnowledgeDocument> writesDuringBuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!"memory".equalsIgnoreCase(searchEngine)) {
+            // Searches go to MongoDB; without an index, updates are no-ops as well
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            writesDuringBuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long start = System.nanoTime();
+            List<KnowledgeDocument> documents = knowledgeRepository.findAll();
+            Bm25Index rebuilt = new Bm25Index(k1, b);
+            Map<String, Filterable> rebuiltFilterables = new HashMap<>();
+            for (KnowledgeDocument document : documents) {
+                rebuilt.put(document.getId(), tokensOf(document));
+                rebuiltFilterables.put(document.getId(), Filterable.of(document));
+            }
+
+            lock.writeLock().lock();
+            try {
+                index = rebuilt;
+                filterables.clear();
+                filterables.putAll(rebuiltFilterables);
+                writesDuringBuild.forEach((documentId, document) -> {
+                    if (document != null) {
+                        put(document, tokensOf(document));
+                    } else {
+                        delete(documentId);
+                    }
+                });
+                writesDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Cached relevant documents were ranked against the previous index, or by MongoDB without one
+            relevantDocumentCache.invalidateAll();
+            log.info("Built knowledge search index over {} documents in {} ms",
+                    documents.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Error building knowledge search index", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                writesDuringBuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Retries the build while no index exists, e.g. after MongoDB was unreachable at startup
+     */
+    @Scheduled(fixedDelayString = "${knowledge.search.rebuild-retry-ms:60000}",
+               initialDelayString = "${knowledge.search.rebuild-retry-ms:60000}")
+    public void rebuildIfMissing() {
+        if ("memory".equalsIgnoreCase(searchEngine) && !isReady()) {
+            log.info("Knowledge search index is missing, rebuilding");
+            rebuild();
+        }
+    }
+
+    /**
+     * Adds or replaces a saved document
+     */
+    public void index(KnowledgeDocument document) {
+        List<String> tokens = tokensOf(document);
+        lock.writeLock().lock();
+        try {
+            if (writesDuringBuild != null) {
+                writesDuringBuild.put(document.getId(), document);
+            }
+            put(document, tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            if (writesDuringBuild != null) {
+                writesDuringBuild.put(documentId, null);
+            }
+            delete(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Caller holds the write lock
+     */
+    private void put(KnowledgeDocument document, List<String> tokens) {
+        if (index != null) {
+            index.put(document.getId(), tokens);
+            filterables.put(document.getId(), Filterable.of(document));
+        }
+    }
+
+    /**
+     * Caller holds the write lock
+     */
+    private void delete(String documentId) {
+        if (index != null) {
+            index.remove(documentId);
+            filterables.remove(documentId);
+        }
+    }
+
+    /**
+     * @param text Free text, e.g. a ticket's title and description
+     * @param limit Maximum number of results
+     * @param publishedOnly Whether to skip unpublished documents
+     * @return Ids and BM25 scores of the best matching documents, best first
+     */
+    public List<Bm25Index.Result> search(String text, int limit, boolean publishedOnly) {
+        List<String> queryTokens = TextTokenizer.tokenize(text);
+        lock.readLock().lock();
+        try {
+            if (index == null || queryTokens.isEmpty()) {
+                return List.of();
+            }
+            return index.search(queryTokens, limit, docId -> {
+                Filterable filterable = filterables.get(docId);
+                return filterable != null && (!publishedOnly || filterable.published());
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 IDF of a word in the knowledge base. Words no document contains cannot help a search and get
+     * a small fixed weight; without an index every word weighs 1.
+     */
+    public double idf(String word) {
+        lock.readLock().lock();
+        try {
+            if (index == null || index.size() == 0) {
+                return 1;
+            }
+            int df = index.documentFrequency(word);
+            if (df == 0) {
+                return UNKNOWN_WORD_WEIGHT;
+            }
+            return Math.log(1 + (index.size() - df + 0.5) / (df + 0.5));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<String> tokensOf(KnowledgeDocument document) {
+        List<String> titleTokens = TextTokenizer.tokenize(document.getTitle());
+        List<String> tagTokens = document.getTags() != null
+                ? TextTokenizer.tokenize(String.join(" ", document.getTags()))
+                : List.of();
+        List<String> contentTokens = TextTokenizer.tokenize(document.getContent());
+
+        List<String> tokens = new ArrayList<>(titleTokens.size() * TITLE_WEIGHT + tagTokens.size() * TAG_WEIGHT
+                + contentTokens.size());
+        for (int i = 0; i < TITLE_WEIGHT; i++) {
+            tokens.addAll(titleTokens);
+        }
+        for (int i = 0; i < TAG_WEIGHT; i++) {
+            tokens.addAll(tagTokens);
+        }
+        tokens.addAll(contentTokens);
+        return tokens;
+    }
+
+    /**
+     * Fields search results can be filtered on without loading the document
+     */
+    private record Filterable(boolean published) {
+
+        private static Filterable of(KnowledgeDocument document) {
+            return new Filterable(document.isPublished());
+        }
+    }
+}
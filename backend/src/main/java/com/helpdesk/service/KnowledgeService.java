@@ -5,12 +5,18 @@ import com.helpdesk.model.Profile;
 import com.helpdesk.model.Ticket;
 import com.helpdesk.repository.KnowledgeDocumentRepository;
 import com.helpdesk.repository.ProfileRepository;
+import com.helpdesk.util.Bm25Index;
+import com.helpdesk.util.KeyphraseExtractor;
+import com.helpdesk.util.TextTokenizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,7 +29,30 @@ public class KnowledgeService {
 
     private final KnowledgeDocumentRepository knowledgeRepository;
     private final ProfileRepository profileRepository;
-    private final AIService aiService;
+    private final KnowledgeSearchIndex knowledgeSearchIndex;
+    private final RelevantDocumentCache relevantDocumentCache;
+
+    @Value("${knowledge.search.max-results:20}")
+    private int maxSearchResults;
+
+    /**
+     * Most recently updated documents of the ticket's department listed after the ranked matches
+     */
+    @Value("${knowledge.search.max-department-documents:10}")
+    private int maxDepartmentDocuments;
+
+    /**
+     * Keyphrases taken from a ticket description into the search query
+     */
+    @Value("${knowledge.search.keyphrases:8}")
+    private int maxKeyphrases;
+
+    /**
+     * Ranking engine for relevant documents: "memory" for the in-process BM25 index,
+     * "mongo" for a single ranked $text query
+     */
+    @Value("${knowledge.search.engine:memory}")
+    private String searchEngine;
 
     /**
      * Get all knowledge documents
@@ -64,6 +93,8 @@ public class KnowledgeService {
         document.setLastUpdatedBy(creator);
         
         KnowledgeDocument savedDocument = knowledgeRepository.save(document);
+        knowledgeSearchIndex.index(savedDocument);
+        relevantDocumentCache.invalidate(savedDocument);
         log.info("Created knowledge document with ID: {}", savedDocument.getId());
         
         return savedDocument;
@@ -107,6 +138,8 @@ public class KnowledgeService {
         document.setLastUpdatedBy(updater);
         
         KnowledgeDocument updatedDocument = knowledgeRepository.save(document);
+        knowledgeSearchIndex.index(updatedDocument);
+        relevantDocumentCache.invalidate(updatedDocument);
         log.info("Updated knowledge document with ID: {}", updatedDocument.getId());
         
         return updatedDocument;
@@ -121,6 +154,8 @@ public class KnowledgeService {
     public void deleteDocument(String id) {
         KnowledgeDocument document = getDocumentById(id);
         knowledgeRepository.delete(document);
+        knowledgeSearchIndex.remove(id);
+        relevantDocumentCache.invalidate(id);
         log.info("Deleted knowledge document with ID: {}", id);
     }
 
@@ -136,64 +171,99 @@ public class KnowledgeService {
     }
 
     /**
-     * Find relevant knowledge documents for a ticket
+     * Find relevant knowledge documents for a ticket.
+     * The title and the description's keyphrases are matched in one pass, by the in-memory BM25 index or
+     * a single MongoDB $text query depending on {@code knowledge.search.engine}; published documents of every
+     * department are ranked by score, followed by the ticket department's most recently updated other
+     * published documents.
+     * The ordered ids are cached per ticket version until a knowledge write affects them; a hit loads
+     * the documents by id.
      *
      * @param ticket The ticket to find relevant documents for
-     * @return List of relevant documents
+     * @return List of relevant documents, most relevant first
      */
     @Transactional(readOnly = true)
     public List<KnowledgeDocument> findRelevantDocuments(Ticket ticket) {
-        // First, get documents from the same department
-        List<KnowledgeDocument> departmentDocs = ticket.getCategory() != null ?
-                knowledgeRepository.findByDepartmentAndPublished(ticket.getCategory(), true) :
-                Collections.emptyList();
-        
-        // Then search by keywords from the ticket title and description
-        Set<KnowledgeDocument> relevantDocs = new HashSet<>(departmentDocs);
-        
-        if (ticket.getTitle() != null && !ticket.getTitle().isEmpty()) {
-            relevantDocs.addAll(knowledgeRepository.searchByText(ticket.getTitle()));
-        }
-        
-        if (ticket.getDescription() != null && !ticket.getDescription().isEmpty()) {
-            try {
-                // Use AI service to extract key terms from the description
-                Map<String, Object> keyTerms = aiService.detectPatterns(Collections.singletonList(ticket.getDescription()));
-                
-                @SuppressWarnings("unchecked")
-                List<String> patterns = (List<String>) keyTerms.getOrDefault("patterns", Collections.emptyList());
-                
-                // Search for documents matching each key term
-                for (String term : patterns) {
-                    relevantDocs.addAll(knowledgeRepository.searchByText(term));
-                }
-                
-                // Fallback to simple word extraction if AI returns no patterns
-                if (patterns.isEmpty()) {
-                    // Extract keywords from description
-                    String[] words = ticket.getDescription().split("\\s+");
-                    for (String word : words) {
-                        if (word.length() > 4) { // Only use significant words
-                            relevantDocs.addAll(knowledgeRepository.searchByText(word));
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("Error using AI to extract key terms: {}", e.getMessage());
-                // Fallback to simple word extraction
-                String[] words = ticket.getDescription().split("\\s+");
-                for (String word : words) {
-                    if (word.length() > 4) { // Only use significant words
-                        relevantDocs.addAll(knowledgeRepository.searchByText(word));
-                    }
-                }
+        String version = relevantDocumentCache.version(ticket);
+        List<RelevantDocumentCache.RankedDocument> cachedDocs = relevantDocumentCache.get(ticket.getId(), version);
+        if (cachedDocs != null) {
+            return loadRanked(cachedDocs);
+        }
+        long generation = relevantDocumentCache.generation();
+        
+        StringBuilder queryText = new StringBuilder();
+        if (ticket.getTitle() != null) {
+            queryText.append(ticket.getTitle());
+        }
+        
+        // Key terms of the description, extracted locally and weighted against the knowledge base
+        List<String> keyphrases = KeyphraseExtractor.extract(ticket.getDescription(), maxKeyphrases, knowledgeSearchIndex::idf);
+        for (String keyphrase : keyphrases) {
+            queryText.append(' ').append(keyphrase);
+        }
+        
+        Map<String, KnowledgeDocument> relevantDocs = new LinkedHashMap<>();
+        for (KnowledgeDocument document : rankMatches(queryText.toString())) {
+            relevantDocs.put(document.getId(), document);
+        }
+        
+        // Then the department's other documents, most recent first
+        if (ticket.getCategory() != null && maxDepartmentDocuments > 0) {
+            knowledgeRepository.findByDepartmentAndPublishedOrderByUpdatedAtDesc(ticket.getCategory(), true,
+                            PageRequest.of(0, maxDepartmentDocuments))
+                    .forEach(document -> relevantDocs.putIfAbsent(document.getId(), document));
+        }
+        
+        List<KnowledgeDocument> result = new ArrayList<>(relevantDocs.values());
+        relevantDocumentCache.put(ticket.getId(), version, generation, TextTokenizer.tokenize(queryText.toString()),
+                ticket.getCategory(), result);
+        return result;
+    }
+
+    /**
+     * Loads cached documents in their cached order; documents deleted since are left out
+     */
+    private List<KnowledgeDocument> loadRanked(List<RelevantDocumentCache.RankedDocument> rankedDocs) {
+        Map<String, KnowledgeDocument> loadedDocs = knowledgeRepository.findAllById(rankedDocs.stream().map(RelevantDocumentCache.RankedDocument::id).toList())
+                .stream()
+                .collect(Collectors.toMap(KnowledgeDocument::getId, Function.identity()));
+        
+        List<KnowledgeDocument> documents = new ArrayList<>(rankedDocs.size());
+        for (RelevantDocumentCache.RankedDocument rankedDoc : rankedDocs) {
+            KnowledgeDocument document = loadedDocs.get(rankedDoc.id());
+            if (document != null) {
+                document.setScore(rankedDoc.score());
+                documents.add(document);
             }
         }
+        return documents;
+    }
+
+    /**
+     * @param queryText Text to match
+     * @return Best matching published documents with their score, best first
+     */
+    private List<KnowledgeDocument> rankMatches(String queryText) {
+        // MongoDB also ranks while the in-memory index is not built yet or failed to build
+        if ("mongo".equalsIgnoreCase(searchEngine) || !knowledgeSearchIndex.isReady()) {
+            List<String> terms = TextTokenizer.tokenize(queryText).stream().distinct().toList();
+            return knowledgeRepository.searchRanked(terms, maxSearchResults, true);
+        }
+        
+        List<Bm25Index.Result> matches = knowledgeSearchIndex.search(queryText, maxSearchResults, true);
+        Map<String, KnowledgeDocument> matchedDocs = knowledgeRepository.findAllById(matches.stream().map(Bm25Index.Result::docId).toList())
+                .stream()
+                .collect(Collectors.toMap(KnowledgeDocument::getId, Function.identity()));
         
-        // Sort by relevance (for now, just by most recent)
-        return relevantDocs.stream()
-                .sorted(Comparator.comparing(KnowledgeDocument::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                .collect(Collectors.toList());
+        List<KnowledgeDocument> ranked = new ArrayList<>(matches.size());
+        for (Bm25Index.Result match : matches) {
+            KnowledgeDocument document = matchedDocs.get(match.docId());
+            if (document != null) {
+                document.setScore((float) match.score());
+                ranked.add(document);
+            }
+        }
+        return ranked;
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.helpdesk.service;
 
+import com.helpdesk.model.PatternLog;
 import com.helpdesk.model.Ticket;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -128,4 +129,21 @@ public class NotificationService {
         
         log.info("Sent new response notification for ticket ID: {}", ticketId);
     }
+    
+    /**
+     * Send an alert when the incident detector sees a spike in new tickets
+     *
+     * @param incident The stored incident pattern
+     */
+    public void notifyIncidentDetected(PatternLog incident) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", "INCIDENT_DETECTED");
+        notification.put("incident", incident);
+        notification.put("message", incident.getDescription());
+        
+        // Send to everyone watching for incidents
+        messagingTemplate.convertAndSend("/topic/incidents", notification);
+        
+        log.info("Sent incident notification: {}", incident.getDescription());
+    }
 }
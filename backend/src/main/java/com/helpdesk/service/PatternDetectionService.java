@@ -0,0 +1,302 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.PatternLog;
+import com.helpdesk.model.Ticket;
+import com.helpdesk.repository.PatternLogRepository;
+import com.helpdesk.util.AIMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs AI pattern detection on a schedule and stores each result as a {@link PatternLog} with its window.
+ * Two kinds of windows are stored: incremental windows over the tickets created since the previous run,
+ * at most {@code max-window-hours} long, and a periodic full pass over the last {@code full-window-days}
+ * that analyzes those tickets together, so an issue spread thinly over many small windows is still found.
+ * Dashboard reads merge the stored windows instead of calling Gemini, so they cost no AI calls.
+ * Ticket creation times are taken from their ObjectIds, which also serve as the run watermark.
+ * Results that fell back to keyword counting are not stored, so the watermark stays put and the
+ * window is analyzed again by Gemini on a later run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatternDetectionService {
+
+    public static final String PATTERN_TYPE = "ticket_patterns";
+
+    public static final String FULL_PASS_PATTERN_TYPE = "ticket_patterns_full";
+
+    private final MongoTemplate mongoTemplate;
+    private final PatternLogRepository patternLogRepository;
+    private final AIService aiService;
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.patterns.schedule.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.patterns.schedule.backfill-days:30}")
+    private int backfillDays;
+
+    @Value("${ai.patterns.schedule.max-tickets-per-run:2000}")
+    private int maxTicketsPerRun;
+
+    /**
+     * Longest time span of one incremental window, so a backfill or a long outage is split into windows
+     * that a short dashboard period can include or leave out
+     */
+    @Value("${ai.patterns.schedule.max-window-hours:6}")
+    private int maxWindowHours;
+
+    /**
+     * Incremental windows analyzed per scheduled run while catching up
+     */
+    @Value("${ai.patterns.schedule.max-windows-per-run:8}")
+    private int maxWindowsPerRun;
+
+    @Value("${ai.patterns.schedule.full-interval-ms:21600000}")
+    private long fullIntervalMs;
+
+    @Value("${ai.patterns.schedule.full-window-days:7}")
+    private int fullWindowDays;
+
+    @Value("${ai.patterns.schedule.max-tickets-full-pass:10000}")
+    private int maxTicketsFullPass;
+
+    /**
+     * Analyzes the tickets created since the last stored window and records the result.
+     * While behind, several bounded windows are analyzed one after another.
+     */
+    @Scheduled(fixedDelayString = "${ai.patterns.schedule.interval-ms:900000}",
+               initialDelayString = "${ai.patterns.schedule.initial-delay-ms:60000}")
+    public void detectNewPatterns() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (int i = 0; i < maxWindowsPerRun && runOnce() != null; i++) {
+                // Keep going until caught up or the per-run limit is reached
+            }
+        } catch (Exception e) {
+            log.error("Error running scheduled pattern detection", e);
+        }
+    }
+
+    /**
+     * Analyzes all tickets of the last {@code full-window-days} together
+     */
+    @Scheduled(fixedDelayString = "${ai.patterns.schedule.full-interval-ms:21600000}",
+               initialDelayString = "${ai.patterns.schedule.full-initial-delay-ms:300000}")
+    public void detectPatternsInFullWindow() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runFullPass();
+        } catch (Exception e) {
+            log.error("Error running full-window pattern detection", e);
+        }
+    }
+
+    /**
+     * Analyzes the next incremental window: the tickets after the watermark, up to
+     * {@code max-window-hours} after the first of them
+     *
+     * @return The stored pattern log, or null when there were no new tickets or the analysis fell back
+     */
+    public synchronized PatternLog runOnce() {
+        Query query = new Query(Criteria.where("_id").gt(currentWatermark()))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(maxTicketsPerRun);
+        query.fields().include("_id").include("description");
+        List<Ticket> tickets = mongoTemplate.find(query, Ticket.class);
+        if (tickets.isEmpty()) {
+            return null;
+        }
+
+        long windowLimit = creationTime(tickets.get(0).getId()).getTime() + maxWindowHours * 3_600_000L;
+        int end = 0;
+        while (end < tickets.size() && creationTime(tickets.get(end).getId()).getTime() < windowLimit) {
+            end++;
+        }
+        PatternLog patternLog = analyze(PATTERN_TYPE, tickets.subList(0, Math.max(1, end)));
+        if (patternLog != null) {
+            aiMetrics.increment("patterns.scheduled.runs");
+        }
+        return patternLog;
+    }
+
+    /**
+     * @return The stored pattern log, or null when there were no tickets in the full window or the analysis fell back
+     */
+    public synchronized PatternLog runFullPass() {
+        ObjectId since = new ObjectId(Date.from(Instant.now().minus(Duration.ofDays(fullWindowDays))));
+        // Newest tickets first, so a limit drops the oldest ones
+        Query query = new Query(Criteria.where("_id").gt(since))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(maxTicketsFullPass);
+        query.fields().include("_id").include("description");
+        List<Ticket> tickets = new ArrayList<>(mongoTemplate.find(query, Ticket.class));
+        if (tickets.isEmpty()) {
+            return null;
+        }
+        Collections.reverse(tickets);
+
+        PatternLog patternLog = analyze(FULL_PASS_PATTERN_TYPE, tickets);
+        if (patternLog != null) {
+            aiMetrics.increment("patterns.scheduled.full_runs");
+        }
+        return patternLog;
+    }
+
+    /**
+     * Merges the stored windows that start within the last {@code days} days into one pattern result,
+     * in the same shape as {@link AIService#detectPatterns(List)}. The newest full pass is used when it
+     * lies within the period, allowing for the time it has aged since it ran; incremental windows fill
+     * the time before and after it, and those overlapping it are left out.
+     *
+     * @param days Number of days to look back
+     * @return Merged pattern result with window information, or an empty result when nothing is stored
+     */
+    public Map<String, Object> getStoredPatterns(int days) {
+        Date cutoff = Date.from(Instant.now().minus(Duration.ofDays(days)));
+        List<PatternLog> logs = new ArrayList<>();
+
+        PatternLog fullPass = patternLogRepository.findFirstByPatternTypeOrderByIdDesc(FULL_PASS_PATTERN_TYPE);
+        Date fullStart = fullPass != null ? windowDate(fullPass, "windowStart") : null;
+        Date fullEnd = fullPass != null ? windowDate(fullPass, "windowEnd") : null;
+        boolean useFullPass = fullStart != null && fullEnd != null
+                && !fullStart.before(new Date(cutoff.getTime() - fullIntervalMs));
+        if (useFullPass) {
+            logs.add(fullPass);
+        }
+        for (PatternLog window : patternLogRepository.findWindowsStartingSince(PATTERN_TYPE, cutoff)) {
+            Date start = windowDate(window, "windowStart");
+            Date end = windowDate(window, "windowEnd");
+            boolean coveredByFullPass = useFullPass && start != null && end != null
+                    && !end.before(fullStart) && !start.after(fullEnd);
+            if (!coveredByFullPass) {
+                logs.add(window);
+            }
+        }
+
+        if (logs.isEmpty()) {
+            Map<String, Object> emptyResult = new HashMap<>();
+            emptyResult.put("patterns", Collections.emptyList());
+            emptyResult.put("count", 0);
+            return emptyResult;
+        }
+
+        List<Map<String, Object>> partials = new ArrayList<>();
+        int ticketCount = 0;
+        Date analyzedThrough = null;
+        for (PatternLog patternLog : logs) {
+            Map<String, Object> metadata = patternLog.getMetadata();
+            if (metadata.get("result") instanceof Map<?, ?> result) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> partial = (Map<String, Object>) result;
+                partials.add(partial);
+            }
+            if (metadata.get("ticketCount") instanceof Number count) {
+                ticketCount += count.intValue();
+            }
+            Date end = windowDate(patternLog, "windowEnd");
+            if (end != null && (analyzedThrough == null || end.after(analyzedThrough))) {
+                analyzedThrough = end;
+            }
+        }
+
+        Map<String, Object> merged = new HashMap<>(PatternMerger.merge(partials, ticketCount));
+        merged.put("ticketsAnalyzed", ticketCount);
+        merged.put("windows", logs.size());
+        merged.put("fullPassIncluded", useFullPass);
+        merged.put("analyzedThrough", analyzedThrough);
+        return merged;
+    }
+
+    /**
+     * @return The stored pattern log, or null when Gemini could not analyze every chunk
+     */
+    private PatternLog analyze(String patternType, List<Ticket> tickets) {
+        List<String> descriptions = tickets.stream()
+                .map(Ticket::getDescription)
+                .filter(Objects::nonNull)
+                .toList();
+        long startedAt = System.currentTimeMillis();
+        Map<String, Object> result = descriptions.isEmpty()
+                ? Map.of("patternDetected", false, "reason", "No ticket descriptions in this window")
+                : aiService.detectPatterns(descriptions);
+
+        String firstTicketId = tickets.get(0).getId();
+        String lastTicketId = tickets.get(tickets.size() - 1).getId();
+        if (AIService.isFallback(result)) {
+            aiMetrics.increment("patterns.scheduled.fallback_skipped");
+            log.warn("Pattern detection fell back to keyword counting for {} window of {} tickets up to ticket {}, "
+                     + "not storing it", patternType, tickets.size(), lastTicketId);
+            return null;
+        }
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("windowStart", creationTime(firstTicketId));
+        metadata.put("windowEnd", creationTime(lastTicketId));
+        metadata.put("firstTicketId", firstTicketId);
+        metadata.put("lastTicketId", lastTicketId);
+        metadata.put("ticketCount", tickets.size());
+        metadata.put("durationMs", System.currentTimeMillis() - startedAt);
+        metadata.put("result", result);
+
+        PatternLog patternLog = patternLogRepository.save(PatternLog.builder()
+                .patternType(patternType)
+                .description(describe(result, tickets.size()))
+                .metadata(metadata)
+                .build());
+        aiMetrics.add("patterns.scheduled.tickets", tickets.size());
+        log.info("Pattern detection stored {} window of {} tickets up to ticket {}", patternType, tickets.size(), lastTicketId);
+        return patternLog;
+    }
+
+    /**
+     * The newest ticket already analyzed, but never older than the backfill horizon
+     */
+    private ObjectId currentWatermark() {
+        ObjectId horizon = new ObjectId(Date.from(Instant.now().minus(Duration.ofDays(backfillDays))));
+        PatternLog last = patternLogRepository.findFirstByPatternTypeOrderByIdDesc(PATTERN_TYPE);
+        if (last == null || !(last.getMetadata().get("lastTicketId") instanceof String lastTicketId)
+                || !ObjectId.isValid(lastTicketId)) {
+            return horizon;
+        }
+        ObjectId lastAnalyzed = new ObjectId(lastTicketId);
+        return lastAnalyzed.compareTo(horizon) > 0 ? lastAnalyzed : horizon;
+    }
+
+    private static Date windowDate(PatternLog patternLog, String key) {
+        return patternLog.getMetadata() != null && patternLog.getMetadata().get(key) instanceof Date date ? date : null;
+    }
+
+    private static Date creationTime(String ticketId) {
+        return ObjectId.isValid(ticketId) ? new ObjectId(ticketId).getDate() : new Date();
+    }
+
+    private String describe(Map<String, Object> result, int ticketCount) {
+        if (Boolean.TRUE.equals(result.get("patternDetected"))) {
+            return "%s pattern in %s of %d tickets".formatted(result.get("issueType"), result.get("occurrences"), ticketCount);
+        }
+        return "No pattern in %d tickets".formatted(ticketCount);
+    }
+}
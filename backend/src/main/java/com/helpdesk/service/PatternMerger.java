@@ -0,0 +1,142 @@
+package com.helpdesk.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reduce step of chunked pattern detection: merges per-chunk pattern results into one result
+ * with the same shape. The merge is deterministic, so the same partial results always give the
+ * same answer regardless of the order in which the chunks completed.
+ */
+final class PatternMerger {
+
+    private static final int MAX_AFFECTED_SYSTEMS = 5;
+
+    private PatternMerger() {
+    }
+
+    /**
+     * Groups the detected partial patterns by issue type, sums their occurrences and picks the
+     * issue type with the most occurrences (then the highest confidence, then alphabetically).
+     *
+     * @param partials Pattern results per chunk, in chunk order
+     * @param totalTickets Number of tickets across all chunks
+     * @return Merged pattern result, marked as fallback when any partial was
+     */
+    static Map<String, Object> merge(List<Map<String, Object>> partials, int totalTickets) {
+        Map<String, Object> merged = mergeDetected(partials, totalTickets);
+        if (partials.stream().anyMatch(AIService::isFallback)) {
+            merged.put("fallback", true);
+        }
+        return merged;
+    }
+
+    private static Map<String, Object> mergeDetected(List<Map<String, Object>> partials, int totalTickets) {
+        Map<String, Group> groups = new HashMap<>();
+        for (Map<String, Object> partial : partials) {
+            if (!Boolean.TRUE.equals(partial.get("patternDetected"))) {
+                continue;
+            }
+            String issueType = String.valueOf(partial.get("issueType")).trim().toLowerCase(Locale.ROOT);
+            if (issueType.isEmpty() || issueType.equals("null")) {
+                continue;
+            }
+            groups.computeIfAbsent(issueType, Group::new).add(partial);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        if (groups.isEmpty()) {
+            result.put("patternDetected", false);
+            result.put("reason", "No clear pattern detected across %d batches of %d tickets"
+                    .formatted(partials.size(), totalTickets));
+            return result;
+        }
+
+        Group best = groups.values().stream()
+                .min(Comparator.comparingInt((Group group) -> group.occurrences).reversed()
+                        .thenComparing(Comparator.comparingDouble(Group::confidence).reversed())
+                        .thenComparing(group -> group.issueType))
+                .orElseThrow();
+
+        result.put("patternDetected", true);
+        result.put("issueType", best.issueType);
+        result.put("occurrences", best.occurrences);
+        result.put("confidence", best.confidence());
+        result.put("suggestedAction", best.suggestedAction);
+        result.put("affectedSystems", best.affectedSystems.stream().limit(MAX_AFFECTED_SYSTEMS).toList());
+        return result;
+    }
+
+    private static final class Group {
+        private final String issueType;
+        private int occurrences;
+        private double weightedConfidence;
+        private double bestActionWeight = -1;
+        private String suggestedAction;
+        private final Set<String> affectedSystems = new LinkedHashSet<>();
+
+        private Group(String issueType) {
+            this.issueType = issueType;
+        }
+
+        private void add(Map<String, Object> partial) {
+            int partialOccurrences = Math.max(1, toInt(partial.get("occurrences")));
+            double partialConfidence = toDouble(partial.get("confidence"));
+            occurrences += partialOccurrences;
+            weightedConfidence += partialOccurrences * partialConfidence;
+
+            // Keep the action of the strongest chunk; on ties the earlier chunk wins
+            double actionWeight = partialOccurrences * partialConfidence;
+            if (actionWeight > bestActionWeight && partial.get("suggestedAction") != null) {
+                bestActionWeight = actionWeight;
+                suggestedAction = String.valueOf(partial.get("suggestedAction"));
+            }
+            if (partial.get("affectedSystems") instanceof List<?> systems) {
+                systems.forEach(system -> affectedSystems.add(String.valueOf(system)));
+            }
+        }
+
+        private double confidence() {
+            return occurrences == 0 ? 0 : Math.min(1.0, weightedConfidence / occurrences);
+        }
+
+        private static int toInt(Object value) {
+            return value instanceof Number number ? number.intValue() : 0;
+        }
+
+        private static double toDouble(Object value) {
+            return value instanceof Number number ? number.doubleValue() : 0;
+        }
+    }
+
+    /**
+     * Splits items into consecutive chunks whose summed cost stays within the budget.
+     * An item larger than the budget gets a chunk of its own.
+     */
+    static <T> List<List<T>> chunk(List<T> items, ToIntFunction<T> cost, int budget) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>();
+        int currentCost = 0;
+        for (T item : items) {
+            int itemCost = cost.applyAsInt(item);
+            if (!current.isEmpty() && currentCost + itemCost > budget) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentCost = 0;
+            }
+            current.add(item);
+            currentCost += itemCost;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,72 @@
+package com.helpdesk.service;
+
+import com.helpdesk.util.TokenEstimator;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Token budgets for the response suggestion prompt. Together they cap the prompt size
+ * regardless of how long the ticket description or thread grows.
+ */
+@Component
+@Getter
+public class PromptBudget {
+
+    /**
+     * Budget for the thread history: rolling summary plus the responses kept verbatim
+     */
+    @Value("${ai.prompt.history-tokens:1500}")
+    private int historyTokens;
+
+    @Value("${ai.prompt.summary-tokens:300}")
+    private int summaryTokens;
+
+    @Value("${ai.prompt.message-tokens:400}")
+    private int messageTokens;
+
+    @Value("${ai.prompt.description-tokens:800}")
+    private int descriptionTokens;
+
+    /**
+     * Maximum size of the new messages folded into the summary by a single Gemini call
+     */
+    @Value("${ai.prompt.summary-input-tokens:2000}")
+    private int summaryInputTokens;
+
+    public String fitDescription(String description) {
+        return TokenEstimator.truncate(description, descriptionTokens);
+    }
+
+    public String fitMessage(String message) {
+        return TokenEstimator.truncate(message, messageTokens);
+    }
+
+    public String fitSummary(String summary) {
+        return TokenEstimator.truncate(summary, summaryTokens);
+    }
+
+    /**
+     * Finds where the verbatim part of a thread starts: the newest messages are kept while they fit
+     * in the history budget minus the space reserved for the summary. The newest message is always kept.
+     *
+     * @param messages Thread messages, oldest first
+     * @param reservedTokens Tokens reserved for the summary of the older messages
+     * @return Index of the first message to keep verbatim
+     */
+    public int recentWindowStart(List<String> messages, int reservedTokens) {
+        int remaining = historyTokens - reservedTokens;
+        int start = messages.size();
+        while (start > 0) {
+            int cost = TokenEstimator.estimate(fitMessage(messages.get(start - 1)));
+            if (cost > remaining && start < messages.size()) {
+                break;
+            }
+            remaining -= cost;
+            start--;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,210 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.KnowledgeDocument;
+import com.helpdesk.model.Profile;
+import com.helpdesk.model.Ticket;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.HashUtils;
+import com.helpdesk.util.TextTokenizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded LRU cache of the ordered ids and scores of each ticket's relevant knowledge documents, keyed by ticket id and valid for one
+ * version of the ticket's title, description and category. Knowledge writes invalidate selectively through
+ * reverse indexes: from document id to the tickets showing it, from query term to the tickets whose search
+ * used it, and from department to the tickets listing that department's documents. Corpus-wide effects
+ * such as shifting IDF weights are bounded by the TTL. Documents themselves are loaded fresh on every hit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RelevantDocumentCache {
+
+    private static final String DEPARTMENT_PREFIX = "department:";
+
+    private final AIMetrics aiMetrics;
+
+    @Value("${knowledge.relevant-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${knowledge.relevant-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${knowledge.relevant-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * Document ids, query terms and departments, each to the tickets whose cached result depends on it
+     */
+    private final Map<String, Set<String>> ticketsByKey = new HashMap<>();
+
+    /**
+     * Bumped by every knowledge write, so a result computed across a write is not cached
+     */
+    private long generation;
+
+    /**
+     * @return Version of the ticket fields that relevant documents are computed from
+     */
+    public String version(Ticket ticket) {
+        return HashUtils.sha256(ticket.getTitle() + "\n" + ticket.getDescription() + "\n" + ticket.getCategory());
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @param ticketId Ticket id
+     * @param version Current version of the ticket from {@link #version(Ticket)}
+     * @return The cached documents in relevance order, or null on a miss
+     */
+    public synchronized List<RankedDocument> get(String ticketId, String version) {
+        if (!enabled || ticketId == null) {
+            return null;
+        }
+        Entry entry = entries.get(ticketId);
+        if (entry == null || !entry.version.equals(version) || entry.expiresAt < System.currentTimeMillis()) {
+            if (entry != null) {
+                remove(ticketId);
+            }
+            aiMetrics.increment("knowledge.relevant_cache.miss");
+            return null;
+        }
+        aiMetrics.increment("knowledge.relevant_cache.hit");
+        return entry.documents;
+    }
+
+    /**
+     * Caches a computed result unless a knowledge write happened while it was computed
+     *
+     * @param generation {@link #generation()} read before the result was computed
+     * @param queryTerms Terms the search query consisted of
+     * @param department Department whose documents the result lists, or null
+     */
+    public synchronized void put(String ticketId, String version, long generation, Collection<String> queryTerms,
+                                 Profile.Department department, List<KnowledgeDocument> documents) {
+        if (!enabled || ticketId == null || generation != this.generation) {
+            return;
+        }
+        remove(ticketId);
+
+        Set<String> keys = new HashSet<>(queryTerms);
+        documents.forEach(document -> keys.add(document.getId()));
+        List<RankedDocument> ranked = documents.stream()
+                .map(document -> new RankedDocument(document.getId(), document.getScore()))
+                .toList();
+        if (department != null) {
+            keys.add(DEPARTMENT_PREFIX + department);
+        }
+        entries.put(ticketId, new Entry(version, ranked, keys, System.currentTimeMillis() + ttlMinutes * 60_000));
+        for (String key : keys) {
+            ticketsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(ticketId);
+        }
+
+        Iterator<String> eldest = entries.keySet().iterator();
+        List<String> evicted = new ArrayList<>();
+        while (entries.size() - evicted.size() > maxEntries && eldest.hasNext()) {
+            evicted.add(eldest.next());
+        }
+        evicted.forEach(this::remove);
+    }
+
+    /**
+     * Drops the tickets a saved document may now appear in or vanish from: those showing it, those whose
+     * query shares a word with it and those listing its department
+     *
+     * @param document The created or updated document
+     */
+    public synchronized void invalidate(KnowledgeDocument document) {
+        generation++;
+        Set<String> keys = new HashSet<>(TextTokenizer.tokenize(document.getTitle()));
+        keys.addAll(TextTokenizer.tokenize(document.getContent()));
+        if (document.getTags() != null) {
+            keys.addAll(TextTokenizer.tokenize(String.join(" ", document.getTags())));
+        }
+        if (document.getDepartment() != null) {
+            keys.add(DEPARTMENT_PREFIX + document.getDepartment());
+        }
+        keys.add(document.getId());
+        invalidateKeys(keys);
+    }
+
+    /**
+     * Drops the tickets showing a deleted document
+     */
+    public synchronized void invalidate(String documentId) {
+        generation++;
+        invalidateKeys(Set.of(documentId));
+    }
+
+    /**
+     * Drops every entry, e.g. after the search index was rebuilt and all scores may have changed
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        if (!entries.isEmpty()) {
+            aiMetrics.add("knowledge.relevant_cache.invalidated", entries.size());
+        }
+        entries.clear();
+        ticketsByKey.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void invalidateKeys(Set<String> keys) {
+        Set<String> tickets = new HashSet<>();
+        for (String key : keys) {
+            Set<String> dependent = ticketsByKey.get(key);
+            if (dependent != null) {
+                tickets.addAll(dependent);
+            }
+        }
+        tickets.forEach(this::remove);
+        if (!tickets.isEmpty()) {
+            aiMetrics.add("knowledge.relevant_cache.invalidated", tickets.size());
+        }
+    }
+
+    private void remove(String ticketId) {
+        Entry entry = entries.remove(ticketId);
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            Set<String> dependent = ticketsByKey.get(key);
+            if (dependent != null) {
+                dependent.remove(ticketId);
+                if (dependent.isEmpty()) {
+                    ticketsByKey.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param score Search score of the document, or null for documents listed by department only
+     */
+    public record RankedDocument(String id, Float score) {
+    }
+
+    private record Entry(String version, List<RankedDocument> documents, Set<String> keys, long expiresAt) {
+    }
+}
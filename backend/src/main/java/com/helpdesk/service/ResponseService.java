@@ -13,6 +13,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +26,8 @@ public class ResponseService {
     private final ProfileRepository profileRepository;
     private final NotificationService notificationService;
     private final AIService aiService;
+    private final SuggestionService suggestionService;
+    private final ThreadContextBuilder threadContextBuilder;
 
     /**
      * Get all responses for a specific ticket
@@ -79,6 +83,9 @@ public class ResponseService {
                 savedResponse.getContent(), 
                 user.getId());
         
+        // The thread changed, so precompute suggestions for the new version
+        suggestionService.warm(ticket);
+        
         log.info("Created new response for ticket ID: {} by user ID: {}", ticketId, userId);
         
         return savedResponse;
@@ -94,16 +101,30 @@ public class ResponseService {
         Ticket ticket = ticketRepository.findById(ticketId)
                 .orElseThrow(() -> new NoSuchElementException("Ticket not found with id: " + ticketId));
         
-        // Get previous responses to provide context
+        // Usually precomputed when the ticket was created or last answered
+        return suggestionService.getSuggestions(ticket);
+    }
+
+    /**
+     * Stream AI-suggested responses for a ticket as they are generated
+     *
+     * @param ticketId The ticket ID
+     * @param onSuggestion Receives each suggestion as soon as it is complete
+     * @return Future holding every delivered suggestion
+     */
+    public CompletableFuture<List<String>> streamSuggestedResponses(String ticketId, Consumer<String> onSuggestion) {
+        Ticket ticket = ticketRepository.findById(ticketId)
+                .orElseThrow(() -> new NoSuchElementException("Ticket not found with id: " + ticketId));
+
         List<TicketResponse> previousResponses = responseRepository.findByTicketOrderByCreatedAtAsc(ticket);
-        List<String> previousResponseContents = previousResponses.stream()
-                .map(TicketResponse::getContent)
-                .toList();
-        
-        return aiService.generateResponseSuggestions(
-                ticket.getTitle(), 
-                ticket.getDescription(), 
-                previousResponseContents);
+
+        return threadContextBuilder.buildAsync(ticket, previousResponses)
+                .thenCompose(context -> aiService.streamResponseSuggestions(
+                        ticket.getTitle(),
+                        ticket.getDescription(),
+                        context.summary(),
+                        context.recentResponses(),
+                        onSuggestion));
     }
 
     /**
@@ -0,0 +1,174 @@
+package com.helpdesk.service;
+
+import com.helpdesk.exception.GeminiApiException;
+import com.helpdesk.service.dto.RoutingBatchDecision;
+import com.helpdesk.service.dto.RoutingDecision;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.AITask;
+import com.helpdesk.util.GeminiApiClient;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects ticket routing requests for a short window and routes them with a single Gemini prompt.
+ * A batch is sent once it holds {@code ai.routing-batch.max-size} tickets or
+ * {@code ai.routing-batch.max-wait-ms} after its first ticket arrived, whichever comes first.
+ * Each caller receives the JSON routing decision for its own ticket.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoutingBatcher {
+
+    private static final int MAX_DESCRIPTION_LENGTH = 1500;
+
+    private final GeminiApiClient geminiApiClient;
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.routing-batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.routing-batch.max-size:20}")
+    private int maxSize;
+
+    @Value("${ai.routing-batch.max-wait-ms:50}")
+    private long maxWaitMs;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "routing-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object lock = new Object();
+    private List<PendingRoute> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a ticket for the next routing batch
+     *
+     * @param title Ticket title
+     * @param description Ticket description
+     * @return Future holding the routing decision for this ticket
+     */
+    public CompletableFuture<RoutingDecision> submit(String title, String description) {
+        PendingRoute route = new PendingRoute(title, description, new CompletableFuture<>());
+        List<PendingRoute> fullBatch = null;
+
+        synchronized (lock) {
+            pending.add(route);
+            if (pending.size() >= maxSize) {
+                fullBatch = drain();
+            } else if (pending.size() == 1) {
+                scheduledFlush = timer.schedule(this::flush, maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return route.result();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        List<PendingRoute> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private List<PendingRoute> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<PendingRoute> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<PendingRoute> batch) {
+        aiMetrics.increment("routing.batch.calls");
+        aiMetrics.add("routing.batch.tickets", batch.size());
+        log.debug("Routing batch of {} tickets", batch.size());
+
+        geminiApiClient.generateHedgedContentAsync(AITask.ROUTING, buildPrompt(batch), RoutingBatchDecision.OUTPUT).whenComplete((response, error) -> {
+            if (error != null) {
+                batch.forEach(route -> route.result().completeExceptionally(error));
+                return;
+            }
+
+            Map<Integer, RoutingDecision> resultsById = new HashMap<>();
+            if (response.getResults() != null) {
+                for (RoutingDecision result : response.getResults()) {
+                    if (result.getId() != null) {
+                        resultsById.put(result.getId(), result);
+                    }
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                RoutingDecision result = resultsById.get(i + 1);
+                if (result != null) {
+                    batch.get(i).result().complete(result);
+                } else {
+                    aiMetrics.increment("routing.batch.missing");
+                    batch.get(i).result().completeExceptionally(
+                            new GeminiApiException("No routing result returned for ticket " + (i + 1) + " of the batch"));
+                }
+            }
+        });
+    }
+
+    private String buildPrompt(List<PendingRoute> batch) {
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append(
+            "Analyze each of the following helpdesk tickets and determine which department it should be routed to.\n" +
+            "Available departments: IT, HR, ADMIN\n\n");
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRoute route = batch.get(i);
+            promptBuilder.append("Ticket %d\nTitle: %s\nDescription: %s\n\n".formatted(
+                    i + 1, route.title(), truncate(route.description())));
+        }
+
+        promptBuilder.append("Return one result per ticket, identified by its ticket number.\n");
+        return promptBuilder.toString();
+    }
+
+    private static String truncate(String text) {
+        if (text == null || text.length() <= MAX_DESCRIPTION_LENGTH) {
+            return text;
+        }
+        return text.substring(0, MAX_DESCRIPTION_LENGTH) + "...";
+    }
+
+    private record PendingRoute(String title, String description, CompletableFuture<RoutingDecision> result) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.helpdesk.service;
+
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU cache of AI routing results, keyed by a hash of the normalized ticket text.
+ * Near-identical tickets (different casing, spacing or e-mail signature) share one entry,
+ * so they are routed without another Gemini call until the entry expires.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoutingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Lines that usually start an e-mail signature or sign-off
+     */
+    private static final Pattern SIGNATURE_START = Pattern.compile(
+            "(?im)^\\s*(--+|_{2,}|(best |kind |warm )?regards\\b|thanks( and regards)?[,!.]?\\s*$|thank you[,!.]?\\s*$|cheers\\b|sent from my\\b)");
+
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.routing-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${ai.routing-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Builds the cache key for a ticket
+     *
+     * @param title Ticket title
+     * @param description Ticket description
+     * @return Hash of the normalized title and description
+     */
+    public String key(String title, String description) {
+        return HashUtils.sha256(normalize(title) + "\n" + normalize(stripSignature(description)));
+    }
+
+    /**
+     * @param key Cache key from {@link #key(String, String)}
+     * @return A copy of the cached routing result, or null on a miss
+     */
+    public synchronized Map<String, Object> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            aiMetrics.increment("routing.cache.miss");
+            return null;
+        }
+        aiMetrics.increment("routing.cache.hit");
+        return new HashMap<>(entry.result);
+    }
+
+    public synchronized void put(String key, Map<String, Object> result) {
+        entries.put(key, new Entry(new HashMap<>(result), System.currentTimeMillis() + ttlMinutes * 60_000));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes every cached routing result
+     *
+     * @return Number of entries removed
+     */
+    public synchronized int clear() {
+        int removed = entries.size();
+        entries.clear();
+        log.info("Flushed {} routing cache entries", removed);
+        return removed;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Cuts the text at the first signature line, ignoring a match on the very first line
+     */
+    static String stripSignature(String text) {
+        if (text == null) {
+            return null;
+        }
+        var matcher = SIGNATURE_START.matcher(text);
+        while (matcher.find()) {
+            if (matcher.start() > 0 && !text.substring(0, matcher.start()).isBlank()) {
+                return text.substring(0, matcher.start());
+            }
+        }
+        return text;
+    }
+
+    private record Entry(Map<String, Object> result, long expiresAt) {
+    }
+}
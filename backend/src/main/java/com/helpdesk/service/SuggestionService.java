@@ -0,0 +1,175 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.Ticket;
+import com.helpdesk.model.TicketResponse;
+import com.helpdesk.repository.TicketResponseRepository;
+import com.helpdesk.service.dto.SuggestionResult;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Precomputes AI response suggestions so agents opening a ticket usually get them from memory.
+ * Entries are keyed by ticket id and tagged with a thread version (a hash of the ticket text and
+ * its response ids); a request for a newer version evicts the stale entry and regenerates it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionService {
+
+    private final AIService aiService;
+    private final ThreadContextBuilder threadContextBuilder;
+    private final TicketResponseRepository responseRepository;
+    private final ThreadPoolTaskExecutor aiTaskExecutor;
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.suggestion-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.suggestion-cache.max-entries:2000}")
+    private int maxEntries;
+
+    @Value("${ai.suggestion-cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Generates suggestions for the current thread version in the background. Called after a
+     * ticket is created or a response is added; a full AI executor simply skips the warm-up.
+     *
+     * @param ticket The ticket whose thread changed
+     */
+    public void warm(Ticket ticket) {
+        if (!enabled || ticket.getId() == null) {
+            return;
+        }
+        try {
+            aiTaskExecutor.execute(() -> {
+                try {
+                    suggestionsFor(ticket, loadPreviousResponses(ticket), "warm");
+                } catch (Exception e) {
+                    log.error("Error warming suggestions for ticket {}", ticket.getId(), e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            aiMetrics.increment("suggestions.cache.warm_rejected");
+            log.warn("AI executor is saturated; suggestions for ticket {} will be generated on demand", ticket.getId());
+        }
+    }
+
+    /**
+     * Returns suggestions for the ticket's current thread, from the cache when the cached
+     * version is still current, otherwise by waiting for a (possibly already running) generation.
+     *
+     * @param ticket The ticket
+     * @return List of suggested responses
+     */
+    public List<String> getSuggestions(Ticket ticket) {
+        List<TicketResponse> previousResponses = loadPreviousResponses(ticket);
+        if (!enabled) {
+            return generate(ticket, previousResponses).join();
+        }
+        return suggestionsFor(ticket, previousResponses, "read").join();
+    }
+
+    /**
+     * Removes the cached suggestions of a ticket
+     */
+    public synchronized void evict(String ticketId) {
+        entries.remove(ticketId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private CompletableFuture<List<String>> suggestionsFor(Ticket ticket, List<TicketResponse> previousResponses, String source) {
+        String version = threadVersion(ticket, previousResponses);
+        long now = System.currentTimeMillis();
+        CompletableFuture<List<String>> generation;
+
+        synchronized (this) {
+            Entry entry = entries.get(ticket.getId());
+            if (entry != null && entry.version.equals(version) && entry.expiresAt >= now) {
+                aiMetrics.increment("suggestions.cache.hit." + source);
+                return entry.suggestions;
+            }
+            aiMetrics.increment(entry == null ? "suggestions.cache.miss." + source : "suggestions.cache.stale." + source);
+
+            generation = new CompletableFuture<>();
+            entries.put(ticket.getId(), new Entry(version, generation, now + ttlMinutes * 60_000));
+        }
+
+        // Generate outside the lock; concurrent readers of this version share the pending future
+        generateResult(ticket, previousResponses)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        evictIfCurrent(ticket.getId(), generation);
+                        generation.completeExceptionally(e);
+                        return;
+                    }
+                    if (result.isFallback()) {
+                        // Generic suggestions are served once, but the next request asks Gemini again
+                        evictIfCurrent(ticket.getId(), generation);
+                        aiMetrics.increment("suggestions.cache.fallback_not_cached");
+                    }
+                    generation.complete(result.getSuggestions());
+                });
+        return generation;
+    }
+
+    private CompletableFuture<List<String>> generate(Ticket ticket, List<TicketResponse> previousResponses) {
+        return generateResult(ticket, previousResponses).thenApply(SuggestionResult::getSuggestions);
+    }
+
+    private CompletableFuture<SuggestionResult> generateResult(Ticket ticket, List<TicketResponse> previousResponses) {
+        return threadContextBuilder.buildAsync(ticket, previousResponses)
+                .thenCompose(context -> aiService.generateSuggestionResultAsync(
+                        ticket.getTitle(),
+                        ticket.getDescription(),
+                        context.summary(),
+                        context.recentResponses()));
+    }
+
+    private synchronized void evictIfCurrent(String ticketId, CompletableFuture<List<String>> generation) {
+        Entry entry = entries.get(ticketId);
+        if (entry != null && entry.suggestions == generation) {
+            entries.remove(ticketId);
+        }
+    }
+
+    private List<TicketResponse> loadPreviousResponses(Ticket ticket) {
+        return responseRepository.findByTicketOrderByCreatedAtAsc(ticket);
+    }
+
+    /**
+     * Changes whenever the ticket text is edited or a response is added, edited or removed
+     */
+    static String threadVersion(Ticket ticket, List<TicketResponse> responses) {
+        String responseVersions = responses.stream()
+                .map(response -> response.getId() + ":" + HashUtils.sha256(String.valueOf(response.getContent())))
+                .collect(Collectors.joining(","));
+        return HashUtils.sha256(ticket.getTitle() + "\n" + ticket.getDescription() + "\n" + responseVersions);
+    }
+
+    private record Entry(String version, CompletableFuture<List<String>> suggestions, long expiresAt) {
+    }
+}
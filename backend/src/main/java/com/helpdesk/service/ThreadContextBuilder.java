@@ -0,0 +1,129 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.Ticket;
+import com.helpdesk.model.TicketResponse;
+import com.helpdesk.model.TicketThreadSummary;
+import com.helpdesk.repository.TicketThreadSummaryRepository;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the thread part of the suggestion prompt within the {@link PromptBudget}: the newest
+ * responses verbatim, everything older as a rolling summary stored per ticket. Responses that
+ * age out of the verbatim window are folded into the stored summary, so each update only
+ * summarizes the new messages instead of the whole thread. The summary is stored with a hash of the
+ * responses it covers, so editing or deleting any of them makes it stale.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThreadContextBuilder {
+
+    private final TicketThreadSummaryRepository summaryRepository;
+    private final AIService aiService;
+    private final PromptBudget promptBudget;
+    private final AIMetrics aiMetrics;
+    private final ThreadPoolTaskExecutor aiTaskExecutor;
+
+    /**
+     * @param ticket The ticket
+     * @param responses Responses of the ticket, oldest first
+     * @return Future holding the summary of older responses (or null) and the responses to quote verbatim
+     */
+    public CompletableFuture<ThreadContext> buildAsync(Ticket ticket, List<TicketResponse> responses) {
+        try {
+            List<String> contents = responses.stream().map(TicketResponse::getContent).toList();
+            TicketThreadSummary stored = summaryRepository.findById(ticket.getId())
+                    .filter(summary -> coversPrefixOf(summary, responses))
+                    .orElse(null);
+            int covered = stored != null ? stored.getCoveredResponses() : 0;
+            String summary = stored != null ? stored.getSummary() : null;
+
+            int windowStart = promptBudget.recentWindowStart(contents, promptBudget.getSummaryTokens());
+            if (windowStart <= covered) {
+                aiMetrics.increment("suggestions.summary.reused");
+                return CompletableFuture.completedFuture(new ThreadContext(summary, contents.subList(covered, contents.size())));
+            }
+
+            // Only the responses that left the verbatim window since the last update are summarized
+            aiMetrics.increment("suggestions.summary.updated");
+            return aiService.summarizeThreadAsync(summary, contents.subList(covered, windowStart))
+                    .thenApply(updatedSummary -> {
+                        // Completes on the Gemini client thread, which must not wait for MongoDB
+                        saveInBackground(ticket.getId(), updatedSummary, windowStart, coveredHash(responses, windowStart));
+                        return new ThreadContext(updatedSummary, contents.subList(windowStart, contents.size()));
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * A stored summary is only reusable while the responses it covers are still the thread's first ones,
+     * unchanged
+     */
+    private boolean coversPrefixOf(TicketThreadSummary summary, List<TicketResponse> responses) {
+        int covered = summary.getCoveredResponses();
+        if (covered == 0) {
+            return true;
+        }
+        boolean valid = covered <= responses.size()
+                && coveredHash(responses, covered).equals(summary.getCoveredHash());
+        if (!valid) {
+            aiMetrics.increment("suggestions.summary.invalidated");
+        }
+        return valid;
+    }
+
+    /**
+     * Ids and contents of the first {@code count} responses, hashed
+     */
+    private static String coveredHash(List<TicketResponse> responses, int count) {
+        return HashUtils.sha256(responses.subList(0, count).stream()
+                .map(response -> response.getId() + ":" + HashUtils.sha256(String.valueOf(response.getContent())))
+                .collect(Collectors.joining(",")));
+    }
+
+    private void saveInBackground(String ticketId, String summary, int coveredResponses, String coveredHash) {
+        try {
+            aiTaskExecutor.execute(() -> save(ticketId, summary, coveredResponses, coveredHash));
+        } catch (TaskRejectedException e) {
+            // Executor saturated; the summary is recomputed from the last stored state next time
+            aiMetrics.increment("suggestions.summary.save_rejected");
+        }
+    }
+
+    private void save(String ticketId, String summary, int coveredResponses, String coveredHash) {
+        try {
+            summaryRepository.save(TicketThreadSummary.builder()
+                    .ticketId(ticketId)
+                    .summary(summary)
+                    .coveredResponses(coveredResponses)
+                    .coveredHash(coveredHash)
+                    .updatedAt(new Date())
+                    .build());
+        } catch (Exception e) {
+            // The summary is recomputed from the last stored state next time
+            log.error("Error saving thread summary for ticket {}", ticketId, e);
+        }
+    }
+
+    /**
+     * Thread history as it goes into the prompt
+     *
+     * @param summary Summary of the responses before {@code recentResponses}, null for short threads
+     * @param recentResponses Newest responses, oldest first
+     */
+    public record ThreadContext(String summary, List<String> recentResponses) {
+    }
+}
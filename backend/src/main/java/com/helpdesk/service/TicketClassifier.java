@@ -0,0 +1,148 @@
+package com.helpdesk.service;
+
+import com.helpdesk.model.Profile;
+import com.helpdesk.model.Ticket;
+import com.helpdesk.util.AIMetrics;
+import com.helpdesk.util.HashedNaiveBayesModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * First routing tier: a naive Bayes classifier trained in-process from historical tickets.
+ * It is retrained on a schedule and only answers when its confidence reaches
+ * {@code ai.classifier.confidence-threshold}; otherwise routing continues to Gemini.
+ * It only learns from confirmed categories, never from provisional keyword routing or its own predictions.
+ * A model only goes live when its predictions at that threshold were precise enough on held-out tickets,
+ * because the naive Bayes posterior overstates its own confidence.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TicketClassifier {
+
+    private final MongoTemplate mongoTemplate;
+    private final AIMetrics aiMetrics;
+
+    @Value("${ai.classifier.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.classifier.confidence-threshold:0.9}")
+    private double confidenceThreshold;
+
+    @Value("${ai.classifier.min-precision:0.95}")
+    private double minPrecision;
+
+    @Value("${ai.classifier.min-held-out-answers:20}")
+    private int minHeldOutAnswers;
+
+    @Value("${ai.classifier.min-training-tickets:50}")
+    private int minTrainingTickets;
+
+    @Value("${ai.classifier.hash-bits:16}")
+    private int hashBits;
+
+    private volatile HashedNaiveBayesModel model;
+
+    /**
+     * Classifies a ticket with the local model
+     *
+     * @param title Ticket title
+     * @param description Ticket description
+     * @return Routing result in the same shape as {@link AIService#routeTicket}, or empty when
+     *         no model is trained yet or the model is not confident enough
+     */
+    public Optional<Map<String, Object>> classify(String title, String description) {
+        HashedNaiveBayesModel currentModel = model;
+        if (!enabled || currentModel == null) {
+            return Optional.empty();
+        }
+
+        HashedNaiveBayesModel.Prediction prediction = currentModel.predict(title + " " + description);
+        if (prediction.probability() < confidenceThreshold) {
+            aiMetrics.increment("routing.classifier.abstain");
+            return Optional.empty();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("department", prediction.department());
+        result.put("confidenceScore", BigDecimal.valueOf(prediction.probability()).setScale(2, RoundingMode.DOWN));
+        result.put("reasoning", prediction.strongestTerms().isEmpty()
+                ? "Local classifier matched this ticket to similar past " + prediction.department() + " tickets"
+                : "Local classifier matched terms typical for " + prediction.department() + " tickets: "
+                        + String.join(", ", prediction.strongestTerms()));
+        result.put("source", Ticket.RoutingSource.LOCAL_CLASSIFIER);
+        return Optional.of(result);
+    }
+
+    /**
+     * Retrains the model from every ticket with a confirmed category and swaps it in when it passes the
+     * held-out precision check; otherwise the tier is switched off until a later retrain passes.
+     * A category is confirmed when Gemini or a person set it. Resolving or closing a ticket does not confirm it,
+     * as most tickets are closed under whatever category keyword routing gave them.
+     */
+    @Scheduled(fixedDelayString = "${ai.classifier.retrain-interval-ms:3600000}",
+               initialDelayString = "${ai.classifier.initial-delay-ms:10000}")
+    public void retrain() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            List<String> texts = new ArrayList<>();
+            List<Profile.Department> labels = new ArrayList<>();
+            for (Ticket ticket : mongoTemplate.find(confirmedLabelsQuery(), Ticket.class)) {
+                if (ticket.getCategory() != null && ticket.getTitle() != null) {
+                    texts.add(ticket.getTitle() + " " + (ticket.getDescription() != null ? ticket.getDescription() : ""));
+                    labels.add(ticket.getCategory());
+                }
+            }
+
+            if (texts.size() < minTrainingTickets || labels.stream().distinct().count() < 2) {
+                log.info("Not enough categorized tickets to train the local classifier ({} found, {} required)",
+                         texts.size(), minTrainingTickets);
+                return;
+            }
+
+            long start = System.nanoTime();
+            HashedNaiveBayesModel.HeldOutPrecision heldOut =
+                    HashedNaiveBayesModel.heldOutPrecision(texts, labels, hashBits, confidenceThreshold);
+            if (heldOut.answered() < minHeldOutAnswers || heldOut.precision() < minPrecision) {
+                log.info("Local classifier disabled: {} of {} held-out tickets above confidence {} were routed correctly "
+                         + "(at least {} answers at precision {} required)",
+                         heldOut.correct(), heldOut.answered(), confidenceThreshold, minHeldOutAnswers, minPrecision);
+                model = null;
+                aiMetrics.increment("routing.classifier.rejected");
+                return;
+            }
+
+            model = HashedNaiveBayesModel.train(texts, labels, hashBits);
+            log.info("Trained local ticket classifier on {} tickets in {} ms, held-out precision {} over {} answers",
+                     texts.size(), (System.nanoTime() - start) / 1_000_000, heldOut.precision(), heldOut.answered());
+            aiMetrics.increment("routing.classifier.trainings");
+        } catch (Exception e) {
+            log.error("Error training local ticket classifier, keeping the previous model", e);
+        }
+    }
+
+    private static Query confirmedLabelsQuery() {
+        Query query = new Query(Criteria.where("category").ne(null)
+                .and("routing_source").in(Ticket.RoutingSource.GEMINI, Ticket.RoutingSource.MANUAL));
+        // Only the training fields; skips loading the creator and assignee references of every ticket
+        query.fields().include("title").include("description").include("category");
+        return query;
+    }
+}
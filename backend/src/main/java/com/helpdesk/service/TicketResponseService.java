@@ -20,6 +20,7 @@ public class TicketResponseService {
     private final TicketResponseRepository ticketResponseRepository;
     private final TicketRepository ticketRepository;
     private final ProfileRepository profileRepository;
+    private final SuggestionService suggestionService;
     
     @Transactional(readOnly = true)
     public List<TicketResponse> getAllResponses() {
@@ -72,7 +73,12 @@ public class TicketResponseService {
                 .orElseThrow(() -> new NoSuchElementException("User not found with id: " + response.getUser().getId()));
         response.setUser(user);
         
-        return ticketResponseRepository.save(response);
+        TicketResponse savedResponse = ticketResponseRepository.save(response);
+        
+        // Have suggestions for the grown thread ready by the time an agent looks at it
+        suggestionService.warm(ticket);
+        
+        return savedResponse;
     }
     
     @Transactional
@@ -87,12 +93,26 @@ public class TicketResponseService {
             response.setInternal(responseDetails.isInternal());
         }
         
-        return ticketResponseRepository.save(response);
+        TicketResponse updatedResponse = ticketResponseRepository.save(response);
+        refreshSuggestions(updatedResponse.getTicket());
+        return updatedResponse;
     }
     
     @Transactional
     public void deleteResponse(String id) {
         TicketResponse response = getResponseById(id);
         ticketResponseRepository.delete(response);
+        refreshSuggestions(response.getTicket());
+    }
+    
+    /**
+     * Suggestions cached for the previous thread no longer apply
+     */
+    private void refreshSuggestions(Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        suggestionService.evict(ticket.getId());
+        suggestionService.warm(ticket);
     }
 }
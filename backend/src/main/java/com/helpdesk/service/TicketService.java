@@ -4,13 +4,24 @@ import com.helpdesk.model.Profile;
 import com.helpdesk.model.Ticket;
 import com.helpdesk.repository.ProfileRepository;
 import com.helpdesk.repository.TicketRepository;
+import com.helpdesk.util.AIMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
@@ -22,6 +33,14 @@ public class TicketService {
     private final ProfileRepository profileRepository;
     private final NotificationService notificationService;
     private final AIService aiService;
+    private final SuggestionService suggestionService;
+    private final IncidentDetector incidentDetector;
+    private final MongoTemplate mongoTemplate;
+    private final AIMetrics aiMetrics;
+    private final ThreadPoolTaskExecutor aiTaskExecutor;
+    
+    @Value("${ai.routing.async-on-create:false}")
+    private boolean asyncRoutingOnCreate;
     
     @Transactional(readOnly = true)
     public List<Ticket> getAllTickets() {
@@ -80,18 +99,26 @@ public class TicketService {
         }
         
         // Auto-route the ticket if category is not specified
-        if (ticket.getCategory() == null && ticket.getTitle() != null && ticket.getDescription() != null) {
-            try {
-                var routingResult = aiService.routeTicket(ticket.getTitle(), ticket.getDescription());
-                ticket.setCategory((Profile.Department) routingResult.get("department"));
-                ticket.setAiConfidenceScore((java.math.BigDecimal) routingResult.get("confidenceScore"));
-                
-                log.info("AI routed ticket to {} department with confidence {}", 
-                         ticket.getCategory(), ticket.getAiConfidenceScore());
-            } catch (Exception e) {
-                log.error("Error auto-routing ticket", e);
-                // Default to ADMIN if auto-routing fails
-                ticket.setCategory(Profile.Department.ADMIN);
+        boolean routeInBackground = false;
+        if (ticket.getCategory() != null) {
+            ticket.setRoutingSource(Ticket.RoutingSource.MANUAL);
+        } else if (ticket.getTitle() != null && ticket.getDescription() != null) {
+            if (asyncRoutingOnCreate) {
+                // Save right away with the keyword category; the AI result is patched in later
+                applyRouting(ticket, aiService.fallbackRouteTicket(ticket.getTitle(), ticket.getDescription()));
+                routeInBackground = true;
+            } else {
+                try {
+                    applyRouting(ticket, aiService.routeTicket(ticket.getTitle(), ticket.getDescription()));
+                    
+                    log.info("AI routed ticket to {} department with confidence {}", 
+                             ticket.getCategory(), ticket.getAiConfidenceScore());
+                } catch (Exception e) {
+                    log.error("Error auto-routing ticket", e);
+                    // Default to ADMIN if auto-routing fails
+                    ticket.setCategory(Profile.Department.ADMIN);
+                    ticket.setRoutingSource(Ticket.RoutingSource.KEYWORD);
+                }
             }
         }
         
@@ -100,9 +127,79 @@ public class TicketService {
         // Send notification for ticket creation
         notificationService.notifyTicketCreated(savedTicket);
         
+        // Count it towards spike detection right away, outages should surface within seconds
+        incidentDetector.record(savedTicket);
+        
+        if (routeInBackground) {
+            scheduleBackgroundRouting(savedTicket);
+        }
+        
+        // Have suggestions ready by the time an agent opens the ticket
+        suggestionService.warm(savedTicket);
+        
         return savedTicket;
     }
     
+    private void applyRouting(Ticket ticket, Map<String, Object> routingResult) {
+        ticket.setCategory((Profile.Department) routingResult.get("department"));
+        ticket.setAiConfidenceScore((BigDecimal) routingResult.get("confidenceScore"));
+        ticket.setRoutingSource((Ticket.RoutingSource) routingResult.get("source"));
+    }
+    
+    /**
+     * Runs AI routing for a ticket saved with a provisional category and patches the result in.
+     * The update only applies while the ticket still carries the provisional routing, so a
+     * category changed by an agent in the meantime is never overwritten.
+     * No thread waits for the routing call. The patch, a Mongo write plus a notification, always runs on the
+     * AI executor: cache and classifier hits complete immediately and must not put it on the request thread.
+     */
+    private void scheduleBackgroundRouting(Ticket ticket) {
+        Profile.Department provisionalCategory = ticket.getCategory();
+        BigDecimal provisionalScore = ticket.getAiConfidenceScore();
+        
+        // A rejected hand-off to the executor completes the chain exceptionally; it never throws here
+        aiService.routeTicketAsync(ticket.getTitle(), ticket.getDescription())
+                .thenAcceptAsync(routingResult -> patchRouting(ticket.getId(), provisionalCategory, provisionalScore, routingResult),
+                        aiTaskExecutor)
+                .exceptionally(e -> {
+                    if (e.getCause() instanceof TaskRejectedException) {
+                        aiMetrics.increment("routing.background.rejected");
+                        log.warn("AI executor is saturated, keeping provisional category {} for ticket {}",
+                                 provisionalCategory, ticket.getId());
+                    } else {
+                        aiMetrics.increment("routing.background.failed");
+                        log.error("Error auto-routing ticket {} in background", ticket.getId(), e);
+                    }
+                    return null;
+                });
+    }
+    
+    private void patchRouting(String ticketId, Profile.Department provisionalCategory, BigDecimal provisionalScore,
+                              Map<String, Object> routingResult) {
+        Profile.Department category = (Profile.Department) routingResult.get("department");
+        BigDecimal confidenceScore = (BigDecimal) routingResult.get("confidenceScore");
+        
+        Query query = new Query(Criteria.where("_id").is(ticketId)
+                .and("category").is(provisionalCategory)
+                .and("ai_confidence_score").is(provisionalScore));
+        Update update = new Update()
+                .set("category", category)
+                .set("ai_confidence_score", confidenceScore)
+                .set("routing_source", routingResult.get("source"));
+        
+        Ticket updatedTicket = mongoTemplate.findAndModify(query, update, 
+                FindAndModifyOptions.options().returnNew(true), Ticket.class);
+        
+        if (updatedTicket == null) {
+            log.info("Ticket {} changed before AI routing finished, keeping its current category", ticketId);
+            return;
+        }
+        
+        log.info("AI routed ticket {} to {} department with confidence {}", 
+                 ticketId, category, confidenceScore);
+        notificationService.notifyTicketUpdated(updatedTicket);
+    }
+    
     @Transactional
     public Ticket updateTicket(String id, Ticket ticketDetails) {
         Ticket ticket = getTicketById(id);
@@ -131,8 +228,10 @@ public class TicketService {
             ticket.setPriority(ticketDetails.getPriority());
         }
         
-        if (ticketDetails.getCategory() != null) {
+        if (ticketDetails.getCategory() != null && ticketDetails.getCategory() != ticket.getCategory()) {
+            // An agent correcting the routing makes the category a trusted training label
             ticket.setCategory(ticketDetails.getCategory());
+            ticket.setRoutingSource(Ticket.RoutingSource.MANUAL);
         }
         
         if (ticketDetails.getAssignedTo() != null) {
@@ -0,0 +1,44 @@
+package com.helpdesk.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.helpdesk.util.StructuredOutput;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.helpdesk.util.StructuredOutput.*;
+
+/**
+ * Gemini analysis of recurring issues across a set of tickets
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatternAnalysis {
+
+    private boolean patternDetected;
+    private String issueType;
+    private Integer occurrences;
+    private Double confidence;
+    private String suggestedAction;
+    private List<String> affectedSystems;
+    private String reason;
+
+    private static final Map<String, Object> SCHEMA = object(properties(
+            Map.entry("patternDetected", bool("Whether the tickets show a pattern or recurring issue")),
+            Map.entry("issueType", string("Type of issue identified, e.g. network, email, software")),
+            Map.entry("occurrences", integer("Number of tickets related to this issue")),
+            Map.entry("confidence", number("Confidence in this pattern between 0 and 1")),
+            Map.entry("suggestedAction", string("Action that should be taken to address the issue")),
+            Map.entry("affectedSystems", array(string("System name"), "Potentially affected systems")),
+            Map.entry("reason", string("Why no pattern was detected, when patternDetected is false"))),
+            List.of("patternDetected"));
+
+    public static final StructuredOutput<PatternAnalysis> OUTPUT =
+            new StructuredOutput<>("patterns", SCHEMA, new TypeReference<>() {});
+}
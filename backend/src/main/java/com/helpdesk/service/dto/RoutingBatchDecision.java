@@ -0,0 +1,38 @@
+package com.helpdesk.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.helpdesk.util.StructuredOutput;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.helpdesk.util.StructuredOutput.*;
+
+/**
+ * Gemini routing decisions for a batch of tickets, one entry per ticket
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoutingBatchDecision {
+
+    private List<RoutingDecision> results;
+
+    private static final Map<String, Object> SCHEMA = object(properties(
+            Map.entry("results", array(object(properties(
+                    Map.entry("id", integer("The ticket number given in the prompt")),
+                    Map.entry("department", enumeration("Department the ticket should be routed to", List.of("IT", "HR", "ADMIN"))),
+                    Map.entry("confidenceScore", number("Confidence in the department between 0 and 1")),
+                    Map.entry("reasoning", string("Brief explanation of why this department was chosen"))),
+                    List.of("id", "department", "confidenceScore", "reasoning")),
+                    "Exactly one routing decision per ticket"))),
+            List.of("results"));
+
+    public static final StructuredOutput<RoutingBatchDecision> OUTPUT =
+            new StructuredOutput<>("routing-batch", SCHEMA, new TypeReference<>() {});
+}
@@ -0,0 +1,40 @@
+package com.helpdesk.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.helpdesk.util.StructuredOutput;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.helpdesk.util.StructuredOutput.*;
+
+/**
+ * Gemini routing decision for one ticket
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoutingDecision {
+
+    /**
+     * Position of the ticket in a routing batch, starting at 1; absent for single routing calls
+     */
+    private Integer id;
+    private String department;
+    private Double confidenceScore;
+    private String reasoning;
+
+    private static final Map<String, Object> SCHEMA = object(properties(
+            Map.entry("department", enumeration("Department the ticket should be routed to", List.of("IT", "HR", "ADMIN"))),
+            Map.entry("confidenceScore", number("Confidence in the department between 0 and 1")),
+            Map.entry("reasoning", string("Brief explanation of why this department was chosen"))),
+            List.of("department", "confidenceScore", "reasoning"));
+
+    public static final StructuredOutput<RoutingDecision> OUTPUT =
+            new StructuredOutput<>("routing", SCHEMA, new TypeReference<>() {});
+}
@@ -0,0 +1,26 @@
+package com.helpdesk.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response suggestions together with where they came from
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionResult {
+
+    private List<String> suggestions;
+
+    /**
+     * True when Gemini was unavailable or failed and the generic keyword suggestions were returned;
+     * such results must not be cached, so Gemini is asked again once it recovers
+     */
+    private boolean fallback;
+}
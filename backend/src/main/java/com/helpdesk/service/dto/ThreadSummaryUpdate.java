@@ -0,0 +1,32 @@
+package com.helpdesk.service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.helpdesk.util.StructuredOutput;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.helpdesk.util.StructuredOutput.*;
+
+/**
+ * Rolling ticket thread summary returned by Gemini
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadSummaryUpdate {
+
+    private String summary;
+
+    private static final Map<String, Object> SCHEMA = object(properties(
+            Map.entry("summary", string("The updated summary of the whole conversation"))),
+            List.of("summary"));
+
+    public static final StructuredOutput<ThreadSummaryUpdate> OUTPUT =
+            new StructuredOutput<>("thread-summary", SCHEMA, new TypeReference<>() {});
+}
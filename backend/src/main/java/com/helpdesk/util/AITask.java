@@ -0,0 +1,28 @@
+package com.helpdesk.util;
+
+import java.util.Locale;
+
+/**
+ * Kinds of AI work sent to Gemini, declared from highest to lowest scheduling priority.
+ */
+public enum AITask {
+    /**
+     * Ticket routing; sits on the ticket creation path
+     */
+    ROUTING,
+    /**
+     * Response suggestions shown to agents
+     */
+    SUGGESTIONS,
+    /**
+     * Background pattern detection for dashboards and knowledge lookups
+     */
+    PATTERNS;
+
+    /**
+     * @return Lowercase name used in configuration keys and metric names
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
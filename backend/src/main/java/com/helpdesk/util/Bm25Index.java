@@ -0,0 +1,211 @@
+package com.helpdesk.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index with Okapi BM25 ranking. Each term maps to parallel int arrays of document slots and
+ * term frequencies, so postings cost two ints per entry and scoring never boxes. Documents are added,
+ * replaced and removed one at a time; slots of removed documents are reused.
+ * Not thread-safe: callers guard searches with a read lock and changes with a write lock.
+ */
+public final class Bm25Index {
+
+    private final float k1;
+    private final float b;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+
+    private final Map<String, Integer> slotByDocId = new HashMap<>();
+    private String[] docIds = new String[16];
+    private int[][] docTerms = new int[16][];
+    private int[] docLengths = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private long totalLength;
+
+    /**
+     * @param k1 Term frequency saturation, typically 1.2
+     * @param b Document length normalization between 0 and 1, typically 0.75
+     */
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Indexes the document, replacing a previous version with the same id
+     *
+     * @param docId Document id
+     * @param tokens Document tokens; repeat the tokens of a field to weight it higher
+     */
+    public void put(String docId, List<String> tokens) {
+        remove(docId);
+
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            int termId = termIds.computeIfAbsent(token, key -> {
+                postings.add(new Postings());
+                return postings.size() - 1;
+            });
+            frequencies.merge(termId, 1, Integer::sum);
+        }
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot();
+        int[] terms = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : frequencies.entrySet()) {
+            terms[i++] = entry.getKey();
+            postings.get(entry.getKey()).add(slot, entry.getValue());
+        }
+        docIds[slot] = docId;
+        docTerms[slot] = terms;
+        docLengths[slot] = tokens.size();
+        totalLength += tokens.size();
+        slotByDocId.put(docId, slot);
+    }
+
+    public void remove(String docId) {
+        Integer slot = slotByDocId.remove(docId);
+        if (slot == null) {
+            return;
+        }
+        for (int termId : docTerms[slot]) {
+            postings.get(termId).remove(slot);
+        }
+        totalLength -= docLengths[slot];
+        docIds[slot] = null;
+        docTerms[slot] = null;
+        docLengths[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public int size() {
+        return slotByDocId.size();
+    }
+
+    /**
+     * @return Number of indexed documents containing the term
+     */
+    public int documentFrequency(String term) {
+        Integer termId = termIds.get(term);
+        return termId != null ? postings.get(termId).size : 0;
+    }
+
+    public boolean contains(String docId) {
+        return slotByDocId.containsKey(docId);
+    }
+
+    /**
+     * Scores every document containing at least one query term in a single pass over their postings
+     *
+     * @param queryTokens Query tokens; repeated tokens count once
+     * @param k Maximum number of results
+     * @param filter Document ids allowed in the result
+     * @return Best matches, highest score first
+     */
+    public List<Result> search(List<String> queryTokens, int k, Predicate<String> filter) {
+        int documents = size();
+        if (documents == 0 || k <= 0) {
+            return List.of();
+        }
+        float averageLength = (float) totalLength / documents;
+        float[] scores = new float[slotCount];
+        int[] touched = new int[slotCount];
+        int touchedCount = 0;
+
+        for (String token : queryTokens.stream().distinct().toList()) {
+            Integer termId = termIds.get(token);
+            if (termId == null) {
+                continue;
+            }
+            Postings termPostings = postings.get(termId);
+            int df = termPostings.size;
+            if (df == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            for (int i = 0; i < df; i++) {
+                int slot = termPostings.slots[i];
+                int tf = termPostings.frequencies[i];
+                float norm = k1 * (1 - b + b * docLengths[slot] / averageLength);
+                if (scores[slot] == 0) {
+                    touched[touchedCount++] = slot;
+                }
+                scores[slot] += idf * tf * (k1 + 1) / (tf + norm);
+            }
+        }
+
+        PriorityQueue<Result> top = new PriorityQueue<>(Comparator.comparingDouble(Result::score));
+        for (int i = 0; i < touchedCount; i++) {
+            int slot = touched[i];
+            String docId = docIds[slot];
+            if (!filter.test(docId)) {
+                continue;
+            }
+            if (top.size() < k) {
+                top.add(new Result(docId, scores[slot]));
+            } else if (scores[slot] > top.peek().score()) {
+                top.poll();
+                top.add(new Result(docId, scores[slot]));
+            }
+        }
+        List<Result> results = new ArrayList<>(top);
+        results.sort(Comparator.comparingDouble(Result::score).reversed());
+        return results;
+    }
+
+    private int nextSlot() {
+        if (slotCount == docIds.length) {
+            int capacity = slotCount * 2;
+            docIds = Arrays.copyOf(docIds, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+        }
+        return slotCount++;
+    }
+
+    public record Result(String docId, double score) {
+    }
+
+    /**
+     * Unordered posting list of one term; removal swaps the last entry into the gap
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        private void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        private void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
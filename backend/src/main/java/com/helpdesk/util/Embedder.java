@@ -0,0 +1,31 @@
+package com.helpdesk.util;
+
+import java.util.Collection;
+
+/**
+ * Turns text into a dense vector for similarity search. Vectors are compared by cosine similarity,
+ * so implementations need not normalize them. Implementations with corpus statistics never change them:
+ * {@link #fit} returns a new instance, so vectors embedded by one instance are always comparable and the
+ * caller decides when to switch. Pure models can ignore it.
+ */
+public interface Embedder {
+
+    /**
+     * @return Length of every vector returned by {@link #embed}
+     */
+    int dimensions();
+
+    /**
+     * @param text Text to embed, may be null
+     * @return Vector of {@link #dimensions()} values; all zeros for text without terms
+     */
+    float[] embed(String text);
+
+    /**
+     * @param corpus Texts of all documents
+     * @return Embedder with the corpus statistics of the given documents; this one is left unchanged
+     */
+    default Embedder fit(Collection<String> corpus) {
+        return this;
+    }
+}
@@ -3,111 +3,633 @@ package com.helpdesk.util;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.helpdesk.exception.GeminiApiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class GeminiApiClient {
 
-    private final RestTemplate restTemplate;
+    private final HttpClient geminiHttpClient;
     private final ObjectMapper objectMapper;
+    private final AIMetrics aiMetrics;
+    private final GeminiRequestScheduler requestScheduler;
+    private final GeminiRetryExecutor retryExecutor;
+    private final GeminiCircuitBreaker circuitBreaker;
+    private final Environment environment;
+
+    /**
+     * Structured calls currently waiting on Gemini, keyed by prompt hash
+     */
+    private final ConcurrentMap<String, CompletableFuture<JsonNode>> inFlightCalls = new ConcurrentHashMap<>();
 
     @Value("${gemini.api-key}")
     private String apiKey;
 
-    private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent";
+    @Value("${gemini.request-timeout-ms:8000}")
+    private long requestTimeoutMs;
+
+    /**
+     * Base URL of the Gemini API; can point at a local stub server for testing
+     */
+    @Value("${gemini.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String baseUrl;
+
+    @Value("${gemini.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    /**
+     * Latency quantile of recent calls after which a hedge is sent
+     */
+    @Value("${gemini.hedging.percentile:0.9}")
+    private double hedgePercentile;
+
+    @Value("${gemini.hedging.min-delay-ms:200}")
+    private long hedgeMinDelayMs;
+
+    @Value("${gemini.hedging.max-delay-ms:3000}")
+    private long hedgeMaxDelayMs;
+
+    /**
+     * No hedging until this many latencies have been observed for the output
+     */
+    @Value("${gemini.hedging.min-samples:20}")
+    private int hedgeMinSamples;
+
+    /**
+     * Maximum hedges per hedgeable call, e.g. 0.1 allows one hedge for every ten calls
+     */
+    @Value("${gemini.hedging.max-hedge-ratio:0.1}")
+    private double maxHedgeRatio;
+
+    private final ConcurrentMap<String, LatencyTracker> hedgeLatencies = new ConcurrentHashMap<>();
+
+    private double hedgeCredits;
 
     /**
-     * Makes a request to the Gemini API with the given prompt
+     * Model for tasks without their own {@code gemini.tasks.<task>.model}
+     */
+    @Value("${gemini.model:gemini-2.0-flash}")
+    private String defaultModel;
+
+    private final Map<AITask, GeminiModelProfile> modelProfiles = new EnumMap<>(AITask.class);
+
+    private final Map<AITask, LatencyTracker> taskLatencies = new EnumMap<>(AITask.class);
+
+    private static final int TASK_LATENCY_SAMPLES = 500;
+
+    private static final int HEDGE_LATENCY_SAMPLES = 200;
+
+    private static final double MAX_HEDGE_CREDITS = 5;
+
+    @PostConstruct
+    public void loadModelProfiles() {
+        for (AITask task : AITask.values()) {
+            String prefix = "gemini.tasks." + task.key() + ".";
+            GeminiModelProfile profile = new GeminiModelProfile(
+                    environment.getProperty(prefix + "model", defaultModel),
+                    environment.getProperty(prefix + "budget-ms", Long.class, 0L),
+                    environment.getProperty(prefix + "fallback-model"));
+            modelProfiles.put(task, profile);
+            taskLatencies.put(task, new LatencyTracker(TASK_LATENCY_SAMPLES));
+            log.info("Gemini {} calls use {} with a {} ms budget, fallback {}",
+                    task.key(), profile.model(), profile.budgetMs(), profile.fallbackModel());
+        }
+    }
+
+    /**
+     * Sends the prompt to the Gemini API without blocking the calling thread.
+     * The call is admitted by the {@link GeminiRequestScheduler} according to the task priority
+     * and guarded by the {@link GeminiCircuitBreaker}.
+     * The returned future completes exceptionally with a {@link GeminiApiException}
+     * on HTTP errors or when the call is shed, and with a {@link java.util.concurrent.TimeoutException}
+     * once the per-call deadline ({@code gemini.request-timeout-ms}) has passed.
      *
+     * @param task Kind of AI work, used for prioritisation
      * @param prompt The prompt to send to Gemini
-     * @return The response from Gemini
+     * @return Future holding the text generated by Gemini
      */
-    public String generateContent(String prompt) {
+    public CompletableFuture<String> generateContentAsync(AITask task, String prompt) {
+        return generateContentAsync(task, prompt, null, false);
+    }
+
+    /**
+     * @param jsonMode Ask for {@code application/json} output
+     * @param responseSchema Schema the JSON output must follow, or null for free-form JSON
+     */
+    private CompletableFuture<String> generateContentAsync(AITask task, String prompt, Map<String, Object> responseSchema, boolean jsonMode) {
+        GeminiModelProfile profile = modelProfiles.get(task);
+        HttpRequest request;
+        HttpRequest fallbackRequest;
         try {
-            String url = GEMINI_API_URL + "?key=" + apiKey;
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> content = new HashMap<>();
-            List<Map<String, Object>> parts = new ArrayList<>();
-            
-            Map<String, Object> textPart = new HashMap<>();
-            textPart.put("text", prompt);
-            parts.add(textPart);
-            
-            content.put("parts", parts);
-            content.put("role", "user");
-            
-            List<Map<String, Object>> contents = new ArrayList<>();
-            contents.add(content);
-            
-            requestBody.put("contents", contents);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return extractTextFromResponse(response.getBody());
+            request = buildRequest(profile.model(), prompt, "generateContent", responseSchema, jsonMode);
+            fallbackRequest = profile.canDegrade()
+                    ? buildRequest(profile.fallbackModel(), prompt, "generateContent", responseSchema, jsonMode)
+                    : null;
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new GeminiApiException("Unable to serialize Gemini request", e));
+        }
+
+        // Fail fast while the breaker is open instead of queueing for quota first
+        if (!circuitBreaker.isCallPermitted()) {
+            aiMetrics.increment("gemini.circuit_breaker.rejected");
+            return CompletableFuture.failedFuture(new GeminiApiException("Gemini circuit breaker is open"));
+        }
+
+        return requestScheduler.submit(task, () -> circuitBreaker.execute(() -> sendWithinBudget(task, profile, request, fallbackRequest)));
+    }
+
+    /**
+     * Sends the request to the task's model. If it has not answered within the task's latency budget,
+     * the HTTP exchange is cancelled and the request is sent to the cheaper fallback model instead, with
+     * the rest of the request timeout as its deadline.
+     */
+    private CompletableFuture<String> sendWithinBudget(AITask task, GeminiModelProfile profile,
+                                                       HttpRequest request, HttpRequest fallbackRequest) {
+        long startedAt = System.nanoTime();
+        String metricPrefix = "gemini.task." + task.key() + ".";
+        aiMetrics.increment(metricPrefix + "calls");
+
+        CompletableFuture<String> call;
+        if (fallbackRequest == null) {
+            call = send(request);
+        } else {
+            call = exchange(request, HttpResponse.BodyHandlers.ofString(), profile.budgetMs())
+                    .thenApply(this::handleResponse)
+                    .exceptionallyCompose(error -> {
+                        if (!(GeminiRetryExecutor.unwrap(error) instanceof TimeoutException)) {
+                            return CompletableFuture.failedFuture(error);
+                        }
+                        // The fallback only gets what is left of the request timeout, so degrading never
+                        // makes the call slower than not degrading would have
+                        long remainingMs = requestTimeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                        if (remainingMs <= 0) {
+                            return CompletableFuture.failedFuture(error);
+                        }
+                        aiMetrics.increment(metricPrefix + "degraded");
+                        log.debug("Gemini {} call exceeded its {} ms budget on {}, degrading to {} for the remaining {} ms",
+                                task.key(), profile.budgetMs(), profile.model(), profile.fallbackModel(), remainingMs);
+                        return send(fallbackRequest, remainingMs)
+                                .whenComplete((text, fallbackError) -> aiMetrics.increment(metricPrefix
+                                        + (fallbackError == null ? "degraded_succeeded" : "degraded_failed")));
+                    });
+        }
+
+        return call.whenComplete((text, error) -> {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            if (error == null) {
+                taskLatencies.get(task).record(elapsedMs);
             } else {
-                log.error("Error calling Gemini API: {}", response.getStatusCode());
-                return null;
+                aiMetrics.increment(metricPrefix + "failed");
             }
-        } catch (Exception e) {
-            log.error("Error calling Gemini API", e);
+            if (profile.budgetMs() > 0 && elapsedMs > profile.budgetMs()) {
+                aiMetrics.increment(metricPrefix + "budget_exceeded");
+            }
+        });
+    }
+
+    /**
+     * @return Per task: model profile and p50/p90/p99 of recent successful call latencies
+     */
+    public Map<String, Object> taskSnapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        for (AITask task : AITask.values()) {
+            GeminiModelProfile profile = modelProfiles.get(task);
+            LatencyTracker latencies = taskLatencies.get(task);
+            Map<String, Object> taskInfo = new HashMap<>();
+            taskInfo.put("model", profile.model());
+            taskInfo.put("budgetMs", profile.budgetMs());
+            taskInfo.put("fallbackModel", profile.fallbackModel());
+            taskInfo.put("samples", latencies.size());
+            taskInfo.put("p50Ms", latencies.percentile(0.5));
+            taskInfo.put("p90Ms", latencies.percentile(0.9));
+            taskInfo.put("p99Ms", latencies.percentile(0.99));
+            snapshot.put(task.key(), taskInfo);
+        }
+        return snapshot;
+    }
+
+    private CompletableFuture<String> send(HttpRequest request) {
+        return send(request, requestTimeoutMs);
+    }
+
+    private CompletableFuture<String> send(HttpRequest request, long timeoutMs) {
+        return exchange(request, HttpResponse.BodyHandlers.ofString(), timeoutMs)
+                .thenApply(this::handleResponse);
+    }
+
+    /**
+     * Sends the request and fails with a {@link TimeoutException} after {@code timeoutMs}. The timeout is
+     * applied to a copy of the HttpClient future: timing out the original would complete it without
+     * aborting the exchange, while cancelling it releases the connection and stops reading the response.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> exchange(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                                           long timeoutMs) {
+        CompletableFuture<HttpResponse<T>> exchange = geminiHttpClient.sendAsync(request, bodyHandler);
+        return exchange.copy()
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error != null && GeminiRetryExecutor.unwrap(error) instanceof TimeoutException) {
+                        exchange.cancel(true);
+                    }
+                });
+    }
+
+    /**
+     * Streams the response to the prompt using Gemini's {@code streamGenerateContent} (server-sent events).
+     * Each text chunk is handed to {@code onText} as soon as it arrives, on an HTTP client thread.
+     * Streams are scheduled and guarded like other calls but never retried, since
+     * part of the output may already have been consumed.
+     *
+     * @param task Kind of AI work, used for prioritisation
+     * @param prompt The prompt to send to Gemini
+     * @param output Structured output the streamed JSON text must follow, or null for free text
+     * @param onText Receives the generated text chunk by chunk
+     * @return Future completed when the stream ends, or exceptionally on failure
+     */
+    public CompletableFuture<Void> streamContentAsync(AITask task, String prompt, StructuredOutput<?> output, Consumer<String> onText) {
+        HttpRequest request;
+        try {
+            request = buildRequest(modelProfiles.get(task).model(), prompt, "streamGenerateContent",
+                    output != null ? output.schema() : null, output != null);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new GeminiApiException("Unable to serialize Gemini request", e));
+        }
+
+        if (!circuitBreaker.isCallPermitted()) {
+            aiMetrics.increment("gemini.circuit_breaker.rejected");
+            return CompletableFuture.failedFuture(new GeminiApiException("Gemini circuit breaker is open"));
+        }
+
+        aiMetrics.increment("gemini.stream.calls");
+        return requestScheduler.submit(task, () -> circuitBreaker.execute(() -> exchange(request,
+                        HttpResponse.BodyHandlers.fromLineSubscriber(new StreamChunkSubscriber(onText)), requestTimeoutMs)
+                .thenApply(response -> {
+                    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        log.error("Error calling Gemini streaming API: {}", response.statusCode());
+                        throw new GeminiApiException("Gemini API returned status " + response.statusCode(),
+                                response.statusCode());
+                    }
+                    return null;
+                })));
+    }
+
+    /**
+     * @return false while the circuit breaker is open, in which case callers should use their fallback directly
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Makes a request to the Gemini API with the given prompt, at suggestion priority
+     *
+     * @param prompt The prompt to send to Gemini
+     * @return The response from Gemini
+     */
+    public String generateContent(String prompt) {
+        try {
+            return generateContentAsync(AITask.SUGGESTIONS, prompt).join();
+        } catch (CompletionException e) {
+            log.error("Error calling Gemini API", e.getCause());
             return null;
         }
     }
-    
+
+    /**
+     * Asks Gemini for structured output: the request carries {@code responseMimeType=application/json}
+     * and the response schema of {@code output}, and the JSON answer is bound to the output type.
+     * Completes exceptionally when the call fails, is shed, or the answer does not match the type.
+     * Retries and coalescing work as for {@link #generateStructuredContentAsync(AITask, String)};
+     * every caller gets its own bound instance.
+     *
+     * @param task Kind of AI work, used for prioritisation
+     * @param prompt The prompt to send to Gemini
+     * @param output Response schema and type
+     * @return Future holding the typed response
+     */
+    public <T> CompletableFuture<T> generateStructuredContentAsync(AITask task, String prompt, StructuredOutput<T> output) {
+        return structuredCall(task, prompt, output.name(), output.schema())
+                .thenApply(json -> bind(json, output));
+    }
+
+    /**
+     * Structured call with hedging, for latency-critical work such as routing on ticket creation.
+     * If no answer has arrived after the {@code gemini.hedging.percentile} latency of recent calls
+     * for the same output, a duplicate request is sent and the first successful answer wins.
+     * Hedges bypass single-flight, retries and the queue, and are only sent out of spare rate limit
+     * capacity and within {@code gemini.hedging.max-hedge-ratio} of calls. A hedge only gets the time
+     * left of the task's latency budget (or of the request timeout without a budget).
+     *
+     * @param task Kind of AI work, used for prioritisation
+     * @param prompt The prompt to send to Gemini
+     * @param output Response schema and type
+     * @return Future holding the typed response of whichever request succeeded first
+     */
+    public <T> CompletableFuture<T> generateHedgedContentAsync(AITask task, String prompt, StructuredOutput<T> output) {
+        long startedAt = System.nanoTime();
+        LatencyTracker latencies = hedgeLatencies.computeIfAbsent(output.name(), name -> new LatencyTracker(HEDGE_LATENCY_SAMPLES));
+        CompletableFuture<T> primary = generateStructuredContentAsync(task, prompt, output);
+        primary.thenRun(() -> latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)));
+
+        if (!hedgingEnabled || latencies.size() < hedgeMinSamples) {
+            return primary;
+        }
+        addHedgeCredit();
+        long delayMs = Math.max(hedgeMinDelayMs, Math.min(hedgeMaxDelayMs, latencies.percentile(hedgePercentile)));
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pendingAttempts = new AtomicInteger(1);
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+        BiConsumer<Boolean, CompletableFuture<T>> race = (isHedge, attempt) -> attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value) && hedgeSent.get()) {
+                    aiMetrics.increment(isHedge ? "gemini.hedge.won" : "gemini.hedge.lost");
+                }
+                return;
+            }
+            firstError.compareAndSet(null, error);
+            if (pendingAttempts.decrementAndGet() == 0) {
+                result.completeExceptionally(firstError.get());
+            }
+        });
+        race.accept(false, primary);
+
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            long remainingMs = hedgeDeadlineMs(task) - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            if (remainingMs <= 0) {
+                aiMetrics.increment("gemini.hedge.skipped.deadline");
+                return;
+            }
+            if (!takeHedgeCredit()) {
+                aiMetrics.increment("gemini.hedge.skipped.budget");
+                return;
+            }
+            if (!circuitBreaker.isCallPermitted() || !requestScheduler.tryAcquireSpare()) {
+                aiMetrics.increment("gemini.hedge.skipped.rate_limit");
+                return;
+            }
+            // Only hedge while the primary is still outstanding
+            if (pendingAttempts.getAndUpdate(pending -> pending == 0 ? 0 : pending + 1) == 0) {
+                return;
+            }
+            hedgeSent.set(true);
+            aiMetrics.increment("gemini.hedge.sent");
+            race.accept(true, sendHedge(task, prompt, output, remainingMs));
+        });
+        return result;
+    }
+
+    private long hedgeDeadlineMs(AITask task) {
+        long budgetMs = modelProfiles.get(task).budgetMs();
+        return budgetMs > 0 ? budgetMs : requestTimeoutMs;
+    }
+
+    private <T> CompletableFuture<T> sendHedge(AITask task, String prompt, StructuredOutput<T> output, long timeoutMs) {
+        HttpRequest request;
+        try {
+            request = buildRequest(modelProfiles.get(task).model(), prompt, "generateContent", output.schema(), true);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new GeminiApiException("Unable to serialize Gemini request", e));
+        }
+        CompletableFuture<String> call = circuitBreaker.execute(() -> send(request, timeoutMs));
+        if (GeminiRequestScheduler.rejectedBeforeSending(call)) {
+            requestScheduler.refund();
+        }
+        return call
+                .thenApply(text -> parseStructuredResponse(text, output.schema()))
+                .thenApply(json -> bind(json, output));
+    }
+
+    private synchronized void addHedgeCredit() {
+        hedgeCredits = Math.min(MAX_HEDGE_CREDITS, hedgeCredits + maxHedgeRatio);
+    }
+
+    private synchronized boolean takeHedgeCredit() {
+        if (hedgeCredits >= 1) {
+            hedgeCredits -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private <T> T bind(JsonNode json, StructuredOutput<T> output) {
+        try {
+            return objectMapper.readerFor(output.type()).readValue(json);
+        } catch (IOException e) {
+            aiMetrics.increment("gemini.json.bind_failed." + output.name());
+            throw new GeminiApiException("Gemini response does not match the " + output.name() + " schema", e);
+        }
+    }
+
     /**
-     * Makes a structured request to the Gemini API with the given prompt and expects a JSON response
+     * Asynchronous variant of {@link #generateStructuredContent(String)}, asking for free-form JSON output.
+     * Completes exceptionally when the call fails, is shed, or no JSON can be extracted.
+     * Transient failures are retried by the {@link GeminiRetryExecutor} without blocking.
+     * Concurrent calls with an identical prompt are coalesced into a single Gemini request
+     * and every caller receives the same parsed {@link JsonNode}, which must not be modified.
+     *
+     * @param task Kind of AI work, used for prioritisation
+     * @param prompt The prompt to send to Gemini
+     * @return Future holding the parsed JSON response from Gemini
+     */
+    public CompletableFuture<JsonNode> generateStructuredContentAsync(AITask task, String prompt) {
+        return structuredCall(task, prompt, "json", null);
+    }
+
+    private CompletableFuture<JsonNode> structuredCall(AITask task, String prompt, String outputName, Map<String, Object> responseSchema) {
+        String key = HashUtils.sha256(outputName + "\n" + prompt);
+        CompletableFuture<JsonNode> call = new CompletableFuture<>();
+        CompletableFuture<JsonNode> existingCall = inFlightCalls.putIfAbsent(key, call);
+        if (existingCall != null) {
+            aiMetrics.increment("gemini.singleflight.coalesced");
+            return existingCall.copy();
+        }
+
+        aiMetrics.increment("gemini.singleflight.issued");
+        retryExecutor.execute(() -> generateContentAsync(task, prompt, responseSchema, true)
+                        .thenApply(text -> parseStructuredResponse(text, responseSchema)))
+                .whenComplete((result, error) -> {
+                    inFlightCalls.remove(key, call);
+                    if (error != null) {
+                        call.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    } else {
+                        call.complete(result);
+                    }
+                });
+        // Callers get a copy so cancelling or completing it cannot affect the other waiters
+        return call.copy();
+    }
+
+    /**
+     * @return Number of distinct structured prompts currently waiting on Gemini
+     */
+    public int getInFlightCallCount() {
+        return inFlightCalls.size();
+    }
+
+    /**
+     * Makes a structured request to the Gemini API with the given prompt and expects a JSON response.
+     * Runs at suggestion priority.
      *
      * @param prompt The prompt to send to Gemini
      * @return The parsed JSON response from Gemini
      */
     public JsonNode generateStructuredContent(String prompt) {
-        String jsonResponse = generateContent(prompt + "\n\nRespond with valid JSON only. Do not include any explanations, markdown formatting, or text outside the JSON object.");
+        try {
+            return generateStructuredContentAsync(AITask.SUGGESTIONS, prompt).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Structured Gemini call failed: {}", cause.toString());
+            return createErrorNode(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+    }
+
+    private HttpRequest buildRequest(String model, String prompt, String method, Map<String, Object> responseSchema, boolean jsonMode)
+            throws JsonProcessingException {
+        Map<String, Object> requestBody = new HashMap<>();
+        Map<String, Object> content = new HashMap<>();
+        List<Map<String, Object>> parts = new ArrayList<>();
+
+        Map<String, Object> textPart = new HashMap<>();
+        textPart.put("text", prompt);
+        parts.add(textPart);
+
+        content.put("parts", parts);
+        content.put("role", "user");
+
+        List<Map<String, Object>> contents = new ArrayList<>();
+        contents.add(content);
+
+        requestBody.put("contents", contents);
 
-        if (jsonResponse != null && !jsonResponse.trim().isEmpty()) {
+        // Structured output mode: Gemini itself guarantees JSON matching the schema
+        if (jsonMode) {
+            Map<String, Object> generationConfig = new HashMap<>();
+            generationConfig.put("responseMimeType", "application/json");
+            if (responseSchema != null) {
+                generationConfig.put("responseSchema", responseSchema);
+            }
+            requestBody.put("generationConfig", generationConfig);
+        }
+
+        String query = method.startsWith("stream") ? "?alt=sse&key=" : "?key=";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/models/" + model + ":" + method + query + apiKey))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
+                .build();
+    }
+
+    private String handleResponse(HttpResponse<String> response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300 || response.body() == null) {
+            log.error("Error calling Gemini API: {}", response.statusCode());
+            throw new GeminiApiException("Gemini API returned status " + response.statusCode(),
+                    response.statusCode(), parseRetryAfter(response));
+        }
+
+        String text = extractTextFromResponse(response.body());
+        if (text == null) {
+            throw new GeminiApiException("Unexpected response format from Gemini API", response.statusCode());
+        }
+        return text;
+    }
+
+    /**
+     * Reads the Retry-After header, given either as delay seconds or as an HTTP date
+     *
+     * @return Requested delay in milliseconds, or -1 when absent or unparseable
+     */
+    private long parseRetryAfter(HttpResponse<String> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
             try {
-                // Clean the response to extract only JSON
-                String cleanedJson = extractJsonFromResponse(jsonResponse);
-
-                if (cleanedJson != null && !cleanedJson.trim().isEmpty()) {
-                    JsonNode rootNode = objectMapper.readTree(cleanedJson);
-                    return rootNode;
-                } else {
-                    log.warn("No valid JSON found in response: {}", jsonResponse);
-                    return createErrorNode("No valid JSON found in response");
+                return Math.max(0, Long.parseLong(value.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, Duration.between(ZonedDateTime.now(), retryAt).toMillis());
+                } catch (DateTimeParseException ignored) {
+                    return -1L;
                 }
-            } catch (JsonProcessingException e) {
-                log.error("Error parsing JSON response from Gemini. Response: {}", jsonResponse, e);
-                return createErrorNode("Invalid JSON format: " + e.getMessage());
             }
+        }).orElse(-1L);
+    }
+
+    /**
+     * @param responseSchema Schema the response was requested with, or null for free-form JSON
+     */
+    private JsonNode parseStructuredResponse(String jsonResponse, Map<String, Object> responseSchema) {
+        if (jsonResponse == null || jsonResponse.trim().isEmpty()) {
+            throw new GeminiApiException("Empty or null response");
         }
 
-        log.warn("Empty or null response from generateContent");
-        return createErrorNode("Empty or null response");
+        // In JSON mode the text is the JSON itself; only fall back to extraction if the model wrapped it anyway
+        try {
+            return objectMapper.readTree(jsonResponse);
+        } catch (JsonProcessingException e) {
+            aiMetrics.increment("gemini.json.extracted");
+        }
+
+        // Skip chatter and code fences around the JSON object or array, preferring the schema's root type
+        JsonNode json = JsonExtractor.extract(objectMapper, jsonResponse, expectedRoot(responseSchema));
+        if (json == null) {
+            log.warn("No valid JSON found in response: {}", jsonResponse);
+            aiMetrics.increment("gemini.json.parse_failed");
+            throw new GeminiApiException("No valid JSON found in response");
+        }
+        return json;
     }
     
+    private static JsonNodeType expectedRoot(Map<String, Object> responseSchema) {
+        if (responseSchema == null) {
+            return null;
+        }
+        Object type = responseSchema.get("type");
+        return "ARRAY".equals(type) ? JsonNodeType.ARRAY : "OBJECT".equals(type) ? JsonNodeType.OBJECT : null;
+    }
+
     /**
      * Extracts the text content from the Gemini API response
      *
@@ -116,16 +638,9 @@ public class GeminiApiClient {
      */
     private String extractTextFromResponse(String responseBody) {
         try {
-            JsonNode rootNode = objectMapper.readTree(responseBody);
-            JsonNode candidates = rootNode.path("candidates");
-            
-            if (candidates.isArray() && candidates.size() > 0) {
-                JsonNode content = candidates.get(0).path("content");
-                JsonNode parts = content.path("parts");
-                
-                if (parts.isArray() && parts.size() > 0) {
-                    return parts.get(0).path("text").asText();
-                }
+            String text = textOf(objectMapper.readTree(responseBody));
+            if (text != null) {
+                return text;
             }
             
             log.error("Unexpected response format from Gemini API: {}", responseBody);
@@ -135,56 +650,70 @@ public class GeminiApiClient {
             return null;
         }
     }
-    private String extractJsonFromResponse(String response) {
-        if (response == null || response.trim().isEmpty()) {
+
+    /**
+     * @return Text of the first candidate's parts, or null if the response carries none
+     */
+    private String textOf(JsonNode rootNode) {
+        JsonNode candidates = rootNode.path("candidates");
+        if (!candidates.isArray() || candidates.size() == 0) {
             return null;
         }
 
-        String trimmed = response.trim();
+        JsonNode parts = candidates.get(0).path("content").path("parts");
+        if (!parts.isArray() || parts.size() == 0) {
+            return null;
+        }
 
-        // Remove markdown code blocks if present
-        if (trimmed.startsWith("```json") && trimmed.endsWith("```")) {
-            trimmed = trimmed.substring(7, trimmed.length() - 3).trim();
-        } else if (trimmed.startsWith("```") && trimmed.endsWith("```")) {
-            trimmed = trimmed.substring(3, trimmed.length() - 3).trim();
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : parts) {
+            text.append(part.path("text").asText(""));
         }
+        return text.toString();
+    }
 
-        // Find JSON object boundaries
-        int jsonStart = -1;
-        int jsonEnd = -1;
+    /**
+     * Receives the server-sent event lines of a streaming response and forwards the text of each chunk
+     */
+    private class StreamChunkSubscriber implements Flow.Subscriber<String> {
 
-        // Look for opening brace
-        for (int i = 0; i < trimmed.length(); i++) {
-            if (trimmed.charAt(i) == '{') {
-                jsonStart = i;
-                break;
-            }
+        private final Consumer<String> onText;
+
+        StreamChunkSubscriber(Consumer<String> onText) {
+            this.onText = onText;
         }
 
-        if (jsonStart == -1) {
-            return null; // No JSON object found
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
         }
 
-        // Find matching closing brace
-        int braceCount = 0;
-        for (int i = jsonStart; i < trimmed.length(); i++) {
-            char c = trimmed.charAt(i);
-            if (c == '{') {
-                braceCount++;
-            } else if (c == '}') {
-                braceCount--;
-                if (braceCount == 0) {
-                    jsonEnd = i;
-                    break;
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("data:")) {
+                return;
+            }
+            try {
+                String text = textOf(objectMapper.readTree(line.substring(5).trim()));
+                if (text != null && !text.isEmpty()) {
+                    onText.accept(text);
                 }
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unparseable Gemini stream chunk: {}", line);
+            } catch (Exception e) {
+                log.error("Error handling Gemini stream chunk", e);
             }
         }
 
-        if (jsonEnd == -1) {
-            return null; // No matching closing brace found
+        @Override
+        public void onError(Throwable throwable) {
+            // Reported through the response future
         }
 
-        return trimmed.substring(jsonStart, jsonEnd + 1);
+        @Override
+        public void onComplete() {
+            // Reported through the response future
+        }
     }
 
     /**
@@ -204,36 +733,17 @@ public class GeminiApiClient {
     }
 
     /**
-     * Alternative method with retry mechanism
+     * Alternative method with retry mechanism.
+     * Retries are scheduled by the {@link GeminiRetryExecutor}, so no thread sleeps between attempts;
+     * only the caller waits for the final result.
      */
     public JsonNode generateStructuredContentWithRetry(String prompt, int maxRetries) {
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                String enhancedPrompt = prompt +
-                        "\n\nIMPORTANT: Respond with ONLY valid JSON. " +
-                        "No explanations, no markdown, no additional text. " +
-                        "Start with { and end with }.";
-
-                JsonNode result = generateStructuredContent(enhancedPrompt);
-
-                // Check if result is valid (not an error node)
-                if (result != null && !result.has("error")) {
-                    return result;
-                }
-
-                if (attempt < maxRetries) {
-                    log.warn("Attempt {} failed, retrying...", attempt);
-                    Thread.sleep(1000); // Wait 1 second before retry
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Retry interrupted", e);
-                break;
-            } catch (Exception e) {
-                log.error("Attempt {} failed with exception", attempt, e);
-            }
+        try {
+            return retryExecutor.execute(() -> generateContentAsync(AITask.SUGGESTIONS, prompt, null, true)
+                    .thenApply(text -> parseStructuredResponse(text, null)), maxRetries).join();
+        } catch (CompletionException e) {
+            log.error("Structured Gemini call failed after retries", e.getCause());
+            return createErrorNode("Failed to generate valid JSON after " + maxRetries + " attempts");
         }
-
-        return createErrorNode("Failed to generate valid JSON after " + maxRetries + " attempts");
     }
 }
@@ -0,0 +1,228 @@
+package com.helpdesk.util;
+
+import com.helpdesk.exception.GeminiCallRejectedException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and concurrency bulkhead around HTTP calls to Gemini.
+ * <p>
+ * The breaker keeps the outcome of the last {@code window-size} calls. Once at least
+ * {@code minimum-calls} are recorded and either the failure rate or the slow call rate reaches
+ * its threshold, the breaker opens and calls are rejected immediately for {@code open-duration-ms}.
+ * It then lets {@code half-open-probes} calls through: if they all succeed it closes again,
+ * a single failure re-opens it. Only transient failures (429, 5xx, timeouts, I/O errors) count.
+ * <p>
+ * Independently, the bulkhead caps the number of concurrent Gemini calls and rejects the excess.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AIMetrics aiMetrics;
+
+    @Value("${gemini.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${gemini.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${gemini.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${gemini.circuit-breaker.slow-call-duration-ms:5000}")
+    private long slowCallDurationMs;
+
+    @Value("${gemini.circuit-breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    @Value("${gemini.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${gemini.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Value("${gemini.bulkhead.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    private Semaphore bulkhead;
+
+    // Ring buffer of recent outcomes, guarded by this
+    private boolean[] failures;
+    private boolean[] slowCalls;
+    private int recorded;
+    private int position;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(maxConcurrentCalls);
+        failures = new boolean[windowSize];
+        slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * Cheap check used to skip Gemini entirely while the breaker is open
+     *
+     * @return false while the breaker is open and its wait duration has not elapsed
+     */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || System.currentTimeMillis() - openedAtMillis >= openDurationMs;
+    }
+
+    /**
+     * Runs the call if the breaker and bulkhead allow it, recording its outcome
+     *
+     * @param call Starts the HTTP call
+     * @return The call's future, or a future failed with a {@link GeminiCallRejectedException} if the call was rejected
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        if (!acquirePermission()) {
+            aiMetrics.increment("gemini.circuit_breaker.rejected");
+            return CompletableFuture.failedFuture(new GeminiCallRejectedException("Gemini circuit breaker is open"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            releaseProbe();
+            aiMetrics.increment("gemini.bulkhead.rejected");
+            return CompletableFuture.failedFuture(new GeminiCallRejectedException("Too many concurrent Gemini calls"));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((value, error) -> {
+            bulkhead.release();
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            boolean failed = error != null && GeminiRetryExecutor.isRetryable(GeminiRetryExecutor.unwrap(error));
+            record(failed, durationMs >= slowCallDurationMs);
+        });
+    }
+
+    /**
+     * @return Current breaker state and window statistics
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("state", currentState());
+        snapshot.put("bufferedCalls", recorded);
+        snapshot.put("failureRate", recorded == 0 ? 0.0 : (double) failureCount / recorded);
+        snapshot.put("slowCallRate", recorded == 0 ? 0.0 : (double) slowCount / recorded);
+        snapshot.put("activeCalls", maxConcurrentCalls - bulkhead.availablePermits());
+        snapshot.put("maxConcurrentCalls", maxConcurrentCalls);
+        if (state == State.OPEN) {
+            snapshot.put("openedAt", Instant.ofEpochMilli(openedAtMillis).toString());
+        }
+        return snapshot;
+    }
+
+    private synchronized State currentState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openDurationMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < openDurationMs) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    private synchronized void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (failed) {
+                transitionTo(State.OPEN);
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Outcome of a call started before the breaker opened
+            return;
+        }
+
+        if (recorded == windowSize) {
+            failureCount -= failures[position] ? 1 : 0;
+            slowCount -= slowCalls[position] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[position] = failed;
+        slowCalls[position] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        position = (position + 1) % windowSize;
+
+        if (recorded >= minimumCalls
+                && ((double) failureCount / recorded >= failureRateThreshold
+                    || (double) slowCount / recorded >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        if (state == newState) {
+            return;
+        }
+        log.warn("Gemini circuit breaker {} -> {} (failures {}/{}, slow calls {}/{})",
+                 state, newState, failureCount, recorded, slowCount, recorded);
+        aiMetrics.increment("gemini.circuit_breaker.transitions." + newState.name().toLowerCase());
+        state = newState;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAtMillis = System.currentTimeMillis();
+        }
+        if (newState == State.CLOSED) {
+            recorded = 0;
+            position = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+}
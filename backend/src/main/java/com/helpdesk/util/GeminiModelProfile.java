@@ -0,0 +1,15 @@
+package com.helpdesk.util;
+
+/**
+ * Model tier and latency budget of one kind of AI work, configured under {@code gemini.tasks.<task>}.
+ *
+ * @param model Gemini model used first
+ * @param budgetMs Time the model gets to answer before the call degrades; 0 disables the budget
+ * @param fallbackModel Cheaper, faster model used once the budget is exceeded, or null for none
+ */
+public record GeminiModelProfile(String model, long budgetMs, String fallbackModel) {
+
+    public boolean canDegrade() {
+        return budgetMs > 0 && fallbackModel != null && !fallbackModel.isBlank() && !fallbackModel.equals(model);
+    }
+}
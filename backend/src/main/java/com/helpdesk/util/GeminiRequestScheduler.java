@@ -0,0 +1,226 @@
+package com.helpdesk.util;
+
+import com.helpdesk.exception.GeminiApiException;
+import com.helpdesk.exception.GeminiCallRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admits Gemini calls according to a token bucket sized to the API quota, in priority order.
+ * Routing is dispatched before suggestions, suggestions before pattern detection, and a few
+ * tokens are always held back for routing so dashboard bursts cannot delay ticket creation.
+ * Lower priority calls are shed (completed exceptionally, so callers use their local fallback)
+ * once the queue is deeper than the per-task limit {@code gemini.scheduler.shed-queue-depth.<task>}.
+ * A call the circuit breaker or bulkhead rejects before sending gets its token back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiRequestScheduler {
+
+    private final AIMetrics aiMetrics;
+    private final Environment environment;
+
+    @Value("${gemini.rate-limit.requests-per-minute:60}")
+    private double requestsPerMinute;
+
+    @Value("${gemini.rate-limit.burst:10}")
+    private double burst;
+
+    @Value("${gemini.rate-limit.reserved-for-routing:2}")
+    private double reservedForRouting;
+
+    @Value("${gemini.scheduler.max-queue-wait-ms:5000}")
+    private long maxQueueWaitMs;
+
+    private final PriorityBlockingQueue<QueuedCall<?>> queue = new PriorityBlockingQueue<>(64,
+            Comparator.comparingInt((QueuedCall<?> call) -> call.task().ordinal())
+                    .thenComparingLong(QueuedCall::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<AITask, Integer> shedQueueDepth = new EnumMap<>(AITask.class);
+
+    private double tokens;
+    private long lastRefillNanos;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        for (AITask task : AITask.values()) {
+            int defaultDepth = task == AITask.ROUTING ? 500 : task == AITask.SUGGESTIONS ? 50 : 10;
+            shedQueueDepth.put(task, environment.getProperty(
+                    "gemini.scheduler.shed-queue-depth." + task.key(), Integer.class, defaultDepth));
+        }
+        reservedForRouting = Math.min(reservedForRouting, Math.max(0, burst - 1));
+        tokens = burst;
+        lastRefillNanos = System.nanoTime();
+
+        dispatcher = new Thread(this::dispatchLoop, "gemini-scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.interrupt();
+        QueuedCall<?> call;
+        while ((call = queue.poll()) != null) {
+            call.result().completeExceptionally(new GeminiApiException("Gemini scheduler shut down"));
+        }
+    }
+
+    /**
+     * Queues a Gemini call; the supplier is invoked once the call is admitted
+     *
+     * @param task Kind of work, which determines priority and shedding
+     * @param call Starts the actual HTTP call
+     * @return Future completed with the outcome of the call, or exceptionally if it was shed
+     */
+    public <T> CompletableFuture<T> submit(AITask task, Supplier<CompletableFuture<T>> call) {
+        if (queue.size() >= shedQueueDepth.get(task)) {
+            aiMetrics.increment("gemini.scheduler.shed." + task.key());
+            return CompletableFuture.failedFuture(
+                    new GeminiApiException("Gemini queue too deep, shedding " + task.key() + " request"));
+        }
+
+        QueuedCall<T> queued = new QueuedCall<>(task, sequence.incrementAndGet(), System.nanoTime(),
+                call, new CompletableFuture<>());
+        queue.add(queued);
+        return queued.result();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                QueuedCall<?> next = queue.take();
+
+                if (System.nanoTime() - next.enqueuedAt() > TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs)) {
+                    aiMetrics.increment("gemini.scheduler.expired." + next.task().key());
+                    next.result().completeExceptionally(
+                            new GeminiApiException("Gemini request waited too long for quota"));
+                    continue;
+                }
+
+                long waitNanos = tryAcquire(next.task());
+                if (waitNanos > 0) {
+                    // Put it back so a higher priority call arriving meanwhile goes first
+                    queue.add(next);
+                    TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(50)));
+                    continue;
+                }
+
+                aiMetrics.increment("gemini.scheduler.dispatched." + next.task().key());
+                if (!next.start()) {
+                    refund();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Unexpected error in Gemini scheduler", e);
+            }
+        }
+    }
+
+    /**
+     * Takes a token for the task if one is available
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until enough tokens are available
+     */
+    private synchronized long tryAcquire(AITask task) {
+        double tokensPerNano = refill();
+
+        double required = task == AITask.ROUTING ? 1 : 1 + reservedForRouting;
+        if (tokens >= required) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((required - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Takes a token right away, bypassing the queue, but only out of spare capacity: never while
+     * calls are waiting and never from the tokens reserved for routing. Used for hedged duplicates,
+     * which are optional and must not delay or displace regular calls.
+     *
+     * @return true if a token was taken
+     */
+    public synchronized boolean tryAcquireSpare() {
+        refill();
+        if (queue.isEmpty() && tokens >= 1 + reservedForRouting) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives back a token taken for a call that was rejected before anything was sent to Gemini
+     */
+    public synchronized void refund() {
+        refill();
+        tokens = Math.min(burst, tokens + 1);
+        aiMetrics.increment("gemini.scheduler.refunded");
+    }
+
+    /**
+     * @param call Future returned by the circuit breaker for a call that was just started
+     * @return true if the breaker or bulkhead rejected the call, so nothing was sent
+     */
+    static boolean rejectedBeforeSending(CompletableFuture<?> call) {
+        return call.isCompletedExceptionally() && call
+                .handle((value, error) -> GeminiRetryExecutor.unwrap(error) instanceof GeminiCallRejectedException)
+                .getNow(false);
+    }
+
+    /**
+     * @return Tokens added per nanosecond
+     */
+    private double refill() {
+        long now = System.nanoTime();
+        double tokensPerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+        return tokensPerNano;
+    }
+
+    private record QueuedCall<T>(AITask task, long sequence, long enqueuedAt,
+                                 Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+
+        /**
+         * @return false if the call was rejected before anything was sent
+         */
+        boolean start() {
+            try {
+                CompletableFuture<T> started = call.get();
+                started.whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+                return !rejectedBeforeSending(started);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                return true;
+            }
+        }
+    }
+}
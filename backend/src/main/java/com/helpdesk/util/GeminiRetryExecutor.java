@@ -0,0 +1,159 @@
+package com.helpdesk.util;
+
+import com.helpdesk.exception.GeminiApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed Gemini calls without holding a thread while waiting.
+ * Retries are scheduled on a timer with exponential backoff and full jitter, honour a
+ * {@code Retry-After} header, and only happen for rate limiting (429), server errors (5xx),
+ * timeouts and connection failures. A retry is never scheduled past the per-call budget
+ * {@code gemini.retry.max-total-ms}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiRetryExecutor {
+
+    private final AIMetrics aiMetrics;
+
+    @Value("${gemini.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${gemini.retry.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${gemini.retry.max-backoff-ms:4000}")
+    private long maxBackoffMs;
+
+    @Value("${gemini.retry.max-total-ms:20000}")
+    private long maxTotalMs;
+
+    @Value("${gemini.request-timeout-ms:8000}")
+    private long requestTimeoutMs;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gemini-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void checkBudget() {
+        if (requestTimeoutMs + initialBackoffMs >= maxTotalMs) {
+            log.warn("gemini.retry.max-total-ms ({} ms) leaves no room after a {} ms request timeout, "
+                     + "so timed-out Gemini calls are never retried", maxTotalMs, requestTimeoutMs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Runs the call, retrying it with the configured number of attempts
+     *
+     * @param call Starts one attempt of the call
+     * @return Future completed with the first successful result or the last failure
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        return execute(call, maxAttempts);
+    }
+
+    /**
+     * Runs the call, retrying it up to the given number of attempts
+     *
+     * @param call Starts one attempt of the call
+     * @param attempts Maximum number of attempts, including the first one
+     * @return Future completed with the first successful result or the last failure
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call, int attempts) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, 1, Math.max(1, attempts), System.nanoTime(), result);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, int attempt, int attempts, long startNanos,
+                             CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            if (!isRetryable(cause) || attempt >= attempts) {
+                if (attempt > 1) {
+                    aiMetrics.increment("gemini.retry.exhausted");
+                }
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delayMs = backoff(attempt, cause);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (elapsedMs + delayMs > maxTotalMs) {
+                aiMetrics.increment("gemini.retry.budget_exceeded");
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            aiMetrics.increment("gemini.retry.scheduled");
+            log.warn("Gemini attempt {} failed ({}), retrying in {} ms", attempt, cause.toString(), delayMs);
+            try {
+                timer.schedule(() -> attempt(call, attempt + 1, attempts, startNanos, result),
+                        delayMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private long backoff(int attempt, Throwable cause) {
+        if (cause instanceof GeminiApiException apiException && apiException.getRetryAfterMs() >= 0) {
+            return apiException.getRetryAfterMs();
+        }
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        // Full jitter spreads retries from concurrent callers over the whole backoff window
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    static boolean isRetryable(Throwable cause) {
+        if (cause instanceof GeminiApiException apiException) {
+            return apiException.isRetryableStatus();
+        }
+        // Timeouts (including java.net.http.HttpTimeoutException) and connection failures
+        return cause instanceof TimeoutException || cause instanceof IOException;
+    }
+
+    static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,28 @@
+package com.helpdesk.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashing helpers used to build cache and de-duplication keys.
+ */
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * @param text Text to hash
+     * @return Hex encoded SHA-256 digest of the UTF-8 bytes of the text
+     */
+    public static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.helpdesk.util;
+
+import com.helpdesk.model.Profile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Multinomial naive Bayes over hashed unigrams and bigrams, predicting a ticket department.
+ * Instances are immutable once trained, so a model can be swapped in atomically and
+ * queried concurrently without locking. Prediction is a few array lookups per term.
+ */
+public final class HashedNaiveBayesModel {
+
+    private static final Profile.Department[] LABELS = Profile.Department.values();
+    private static final double SMOOTHING = 1.0;
+    private static final int HELD_OUT_EVERY = 5;
+
+    private final int mask;
+    private final double[] logPriors;
+    private final float[][] logLikelihoods;
+    private final int trainingSize;
+
+    private HashedNaiveBayesModel(int mask, double[] logPriors, float[][] logLikelihoods, int trainingSize) {
+        this.mask = mask;
+        this.logPriors = logPriors;
+        this.logLikelihoods = logLikelihoods;
+        this.trainingSize = trainingSize;
+    }
+
+    /**
+     * Trains a model from labelled ticket texts
+     *
+     * @param texts Ticket texts (title and description)
+     * @param labels Department of each text
+     * @param hashBits Number of hash bits, giving 2^hashBits feature buckets
+     * @return The trained model
+     */
+    public static HashedNaiveBayesModel train(List<String> texts, List<Profile.Department> labels, int hashBits) {
+        int buckets = 1 << hashBits;
+        int mask = buckets - 1;
+        double[][] counts = new double[LABELS.length][buckets];
+        double[] totals = new double[LABELS.length];
+        int[] documents = new int[LABELS.length];
+
+        for (int i = 0; i < texts.size(); i++) {
+            int label = labels.get(i).ordinal();
+            documents[label]++;
+            for (String term : TextTokenizer.terms(texts.get(i))) {
+                counts[label][term.hashCode() & mask]++;
+                totals[label]++;
+            }
+        }
+
+        double[] logPriors = new double[LABELS.length];
+        float[][] logLikelihoods = new float[LABELS.length][buckets];
+        for (int label = 0; label < LABELS.length; label++) {
+            logPriors[label] = Math.log((documents[label] + SMOOTHING) / (texts.size() + SMOOTHING * LABELS.length));
+            double denominator = Math.log(totals[label] + SMOOTHING * buckets);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                logLikelihoods[label][bucket] = (float) (Math.log(counts[label][bucket] + SMOOTHING) - denominator);
+            }
+        }
+        return new HashedNaiveBayesModel(mask, logPriors, logLikelihoods, texts.size());
+    }
+
+    /**
+     * @param text Ticket text to classify
+     * @return Most likely department with its posterior probability and strongest terms
+     */
+    public Prediction predict(String text) {
+        List<String> terms = TextTokenizer.terms(text);
+        double[] scores = logPriors.clone();
+        for (String term : terms) {
+            int bucket = term.hashCode() & mask;
+            for (int label = 0; label < LABELS.length; label++) {
+                scores[label] += logLikelihoods[label][bucket];
+            }
+        }
+
+        int best = 0;
+        for (int label = 1; label < LABELS.length; label++) {
+            if (scores[label] > scores[best]) {
+                best = label;
+            }
+        }
+
+        // Softmax over the log scores, shifted by the maximum for numerical stability
+        double sum = 0;
+        for (double score : scores) {
+            sum += Math.exp(score - scores[best]);
+        }
+        double probability = 1.0 / sum;
+
+        return new Prediction(LABELS[best], probability, strongestTerms(terms, best));
+    }
+
+    /**
+     * Trains on all but every {@code HELD_OUT_EVERY}th text and measures how often the held-out predictions at or
+     * above the threshold are right. The posterior of naive Bayes is far too confident, so a high probability alone
+     * says little about how often the model is right.
+     *
+     * @param texts Ticket texts (title and description)
+     * @param labels Department of each text
+     * @param hashBits Number of hash bits, giving 2^hashBits feature buckets
+     * @param threshold Probability at which the model would answer
+     * @return Held-out predictions at or above the threshold and how many of them were right
+     */
+    public static HeldOutPrecision heldOutPrecision(List<String> texts, List<Profile.Department> labels,
+                                                    int hashBits, double threshold) {
+        List<String> trainingTexts = new ArrayList<>();
+        List<Profile.Department> trainingLabels = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (i % HELD_OUT_EVERY != 0) {
+                trainingTexts.add(texts.get(i));
+                trainingLabels.add(labels.get(i));
+            }
+        }
+        HashedNaiveBayesModel candidate = train(trainingTexts, trainingLabels, hashBits);
+
+        int answered = 0;
+        int correct = 0;
+        for (int i = 0; i < texts.size(); i += HELD_OUT_EVERY) {
+            Prediction prediction = candidate.predict(texts.get(i));
+            if (prediction.probability() >= threshold) {
+                answered++;
+                if (prediction.department() == labels.get(i)) {
+                    correct++;
+                }
+            }
+        }
+        return new HeldOutPrecision(answered, correct);
+    }
+
+    public int getTrainingSize() {
+        return trainingSize;
+    }
+
+    private List<String> strongestTerms(List<String> terms, int label) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(terms));
+        unique.sort(Comparator.comparingDouble((String term) -> -evidence(term, label)));
+        return unique.stream().filter(term -> evidence(term, label) > 0).limit(3).toList();
+    }
+
+    /**
+     * How much more likely the term is under the label than under the best competing label
+     */
+    private double evidence(String term, int label) {
+        int bucket = term.hashCode() & mask;
+        double competitor = Double.NEGATIVE_INFINITY;
+        for (int other = 0; other < LABELS.length; other++) {
+            if (other != label) {
+                competitor = Math.max(competitor, logLikelihoods[other][bucket]);
+            }
+        }
+        return logLikelihoods[label][bucket] - competitor;
+    }
+
+    /**
+     * @param answered Held-out texts predicted at or above the threshold
+     * @param correct Of those, the ones predicted right
+     */
+    public record HeldOutPrecision(int answered, int correct) {
+
+        public double precision() {
+            return answered == 0 ? 0 : (double) correct / answered;
+        }
+    }
+
+    public record Prediction(Profile.Department department, double probability, List<String> strongestTerms) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.helpdesk.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Offline default {@link Embedder}: unigrams and bigrams are hashed into a fixed number of signed
+ * buckets and weighted by sublinear TF times IDF, where document frequencies are kept per bucket.
+ * Needs no model files or network; similar wording gives similar vectors, synonyms do not.
+ * Select another embedder bean by setting {@code ai.embeddings.embedder}.
+ */
+@Component
+@ConditionalOnProperty(name = "ai.embeddings.embedder", havingValue = "hashed-tfidf", matchIfMissing = true)
+public class HashedTfIdfEmbedder implements Embedder {
+
+    @Value("${ai.embeddings.dimensions:512}")
+    private int dimensions;
+
+    /**
+     * Fixed per instance; {@link #fit} returns a new embedder, so an embedding never mixes statistics of two fits
+     */
+    private CorpusStatistics statistics;
+
+    public HashedTfIdfEmbedder() {
+    }
+
+    private HashedTfIdfEmbedder(int dimensions, CorpusStatistics statistics) {
+        this.dimensions = dimensions;
+        this.statistics = statistics;
+    }
+
+    @PostConstruct
+    public void init() {
+        statistics = new CorpusStatistics(new int[dimensions], 0);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        List<String> terms = TextTokenizer.terms(text);
+        float[] counts = new float[dimensions];
+        for (String term : terms) {
+            int hash = mix(term.hashCode());
+            counts[bucketOf(hash)] += (hash & 0x80000000) == 0 ? 1 : -1;
+        }
+
+        CorpusStatistics current = statistics;
+        float[] vector = new float[dimensions];
+        double norm = 0;
+        for (int bucket = 0; bucket < dimensions; bucket++) {
+            float count = counts[bucket];
+            if (count == 0) {
+                continue;
+            }
+            double tf = 1 + Math.log(Math.abs(count));
+            double idf = Math.log((current.documents() + 1.0) / (current.documentFrequencies()[bucket] + 1.0)) + 1;
+            vector[bucket] = (float) (Math.signum(count) * tf * idf);
+            norm += vector[bucket] * vector[bucket];
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int bucket = 0; bucket < dimensions; bucket++) {
+                vector[bucket] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public Embedder fit(Collection<String> corpus) {
+        int[] frequencies = new int[dimensions];
+        for (String text : corpus) {
+            BitSet seen = new BitSet(dimensions);
+            for (String term : TextTokenizer.terms(text)) {
+                seen.set(bucketOf(mix(term.hashCode())));
+            }
+            seen.stream().forEach(bucket -> frequencies[bucket]++);
+        }
+        return new HashedTfIdfEmbedder(dimensions, new CorpusStatistics(frequencies, corpus.size()));
+    }
+
+    private int bucketOf(int hash) {
+        return Math.floorMod(hash, dimensions);
+    }
+
+    /**
+     * Murmur3 finalizer; String.hashCode alone clusters similar short terms into nearby buckets
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private record CorpusStatistics(int[] documentFrequencies, long documents) {
+    }
+}
@@ -0,0 +1,250 @@
+package com.helpdesk.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph over int8 vectors, answering approximate top-k cosine
+ * similarity queries in logarithmic time. Nodes are numbered in insertion order; removal leaves a
+ * tombstone that is still traversed but never returned, so callers rebuild once tombstones pile up.
+ * Not thread-safe: callers guard searches with a read lock and changes with a write lock.
+ */
+public final class HnswIndex {
+
+    private final int maxConnections;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    private int deleted;
+
+    /**
+     * @param maxConnections Neighbours per node on upper layers (M); the bottom layer keeps twice as many
+     * @param efConstruction Candidate list size while inserting; higher builds a better graph, slower
+     */
+    public HnswIndex(int maxConnections, int efConstruction) {
+        this.maxConnections = maxConnections;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxConnections);
+    }
+
+    /**
+     * @return Number of the new node
+     */
+    public int add(byte[] vector) {
+        int id = nodes.size();
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        Node node = new Node(vector, level, maxConnections);
+        nodes.add(node);
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            topLevel = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        for (int layer = topLevel; layer > level; layer--) {
+            current = searchLayer(node.vector, node.norm, current, 1, layer).get(0).node();
+        }
+        for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+            List<Result> candidates = searchLayer(node.vector, node.norm, current, efConstruction, layer);
+            for (Result neighbour : selectNeighbours(candidates, maxConnections)) {
+                node.connect(layer, neighbour.node());
+                connectBack(neighbour.node(), id, layer);
+            }
+            current = candidates.get(0).node();
+        }
+        if (level > topLevel) {
+            entryPoint = id;
+            topLevel = level;
+        }
+        return id;
+    }
+
+    public void remove(int id) {
+        Node node = nodes.get(id);
+        if (!node.deleted) {
+            node.deleted = true;
+            deleted++;
+        }
+    }
+
+    public int size() {
+        return nodes.size() - deleted;
+    }
+
+    public int deletedCount() {
+        return deleted;
+    }
+
+    /**
+     * @param query Query vector of the indexed dimension
+     * @param k Number of results
+     * @param ef Candidate list size on the bottom layer; raised to k when smaller
+     * @return Up to k live nodes, most similar first
+     */
+    public List<Result> search(byte[] query, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        float queryNorm = Int8Vectors.norm(query);
+        if (queryNorm == 0) {
+            return List.of();
+        }
+
+        int current = entryPoint;
+        for (int layer = topLevel; layer > 0; layer--) {
+            current = searchLayer(query, queryNorm, current, 1, layer).get(0).node();
+        }
+        List<Result> results = new ArrayList<>(k);
+        for (Result candidate : searchLayer(query, queryNorm, current, Math.max(ef, k), 0)) {
+            if (!nodes.get(candidate.node()).deleted) {
+                results.add(candidate);
+                if (results.size() == k) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Best-first search of one layer
+     *
+     * @return Up to ef nodes, most similar first; tombstones included
+     */
+    private List<Result> searchLayer(byte[] query, float queryNorm, int start, int ef, int layer) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Result> candidates = new PriorityQueue<>(Comparator.comparingDouble(Result::similarity).reversed());
+        PriorityQueue<Result> best = new PriorityQueue<>(Comparator.comparingDouble(Result::similarity));
+
+        Result first = new Result(start, similarity(query, queryNorm, nodes.get(start)));
+        visited.set(start);
+        candidates.add(first);
+        best.add(first);
+
+        while (!candidates.isEmpty()) {
+            Result candidate = candidates.poll();
+            if (best.size() >= ef && candidate.similarity() < best.peek().similarity()) {
+                break;
+            }
+            Node node = nodes.get(candidate.node());
+            int[] neighbours = node.neighbours[layer];
+            for (int i = 0; i < node.counts[layer]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                Result result = new Result(neighbour, similarity(query, queryNorm, nodes.get(neighbour)));
+                if (best.size() < ef || result.similarity() > best.peek().similarity()) {
+                    candidates.add(result);
+                    best.add(result);
+                    if (best.size() > ef) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Result> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(Result::similarity).reversed());
+        return ordered;
+    }
+
+    /**
+     * Neighbour heuristic of the HNSW paper: a candidate is kept only if it is closer to the new node
+     * than to every neighbour already kept, which spreads links across clusters. Remaining slots are
+     * filled with the closest pruned candidates.
+     */
+    private List<Result> selectNeighbours(List<Result> candidates, int limit) {
+        List<Result> selected = new ArrayList<>(limit);
+        List<Result> pruned = new ArrayList<>();
+        for (Result candidate : candidates) {
+            if (selected.size() == limit) {
+                break;
+            }
+            Node candidateNode = nodes.get(candidate.node());
+            boolean diverse = true;
+            for (Result kept : selected) {
+                if (similarity(candidateNode.vector, candidateNode.norm, nodes.get(kept.node())) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < limit; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * Links the neighbour back to the new node; a full neighbour list is re-selected by the heuristic
+     */
+    private void connectBack(int neighbourId, int newId, int layer) {
+        Node neighbour = nodes.get(neighbourId);
+        if (neighbour.connect(layer, newId)) {
+            return;
+        }
+        List<Result> candidates = new ArrayList<>(neighbour.counts[layer] + 1);
+        candidates.add(new Result(newId, similarity(neighbour.vector, neighbour.norm, nodes.get(newId))));
+        for (int i = 0; i < neighbour.counts[layer]; i++) {
+            int linked = neighbour.neighbours[layer][i];
+            candidates.add(new Result(linked, similarity(neighbour.vector, neighbour.norm, nodes.get(linked))));
+        }
+        candidates.sort(Comparator.comparingDouble(Result::similarity).reversed());
+        List<Result> kept = selectNeighbours(candidates, neighbour.neighbours[layer].length);
+        neighbour.counts[layer] = 0;
+        kept.forEach(result -> neighbour.connect(layer, result.node()));
+    }
+
+    private static float similarity(byte[] query, float queryNorm, Node node) {
+        return node.norm == 0 ? 0 : Int8Vectors.dot(query, node.vector) / (queryNorm * node.norm);
+    }
+
+    /**
+     * @param node Node number as returned by {@link #add}
+     * @param similarity Cosine similarity to the query
+     */
+    public record Result(int node, float similarity) {
+    }
+
+    private static final class Node {
+        private final byte[] vector;
+        private final float norm;
+        private final int[][] neighbours;
+        private final int[] counts;
+        private boolean deleted;
+
+        private Node(byte[] vector, int level, int maxConnections) {
+            this.vector = vector;
+            this.norm = Int8Vectors.norm(vector);
+            this.neighbours = new int[level + 1][];
+            this.counts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                neighbours[layer] = new int[layer == 0 ? maxConnections * 2 : maxConnections];
+            }
+        }
+
+        /**
+         * @return false when the layer's neighbour list is full
+         */
+        private boolean connect(int layer, int neighbour) {
+            if (counts[layer] == neighbours[layer].length) {
+                return false;
+            }
+            neighbours[layer][counts[layer]++] = neighbour;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.helpdesk.util;
+
+/**
+ * Symmetric int8 quantization of embedding vectors. Each vector is scaled by its own largest
+ * component, which cosine similarity ignores, so no scale needs to be stored next to the bytes.
+ */
+public final class Int8Vectors {
+
+    private Int8Vectors() {
+    }
+
+    public static byte[] quantize(float[] vector) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        byte[] quantized = new byte[vector.length];
+        if (maxAbs == 0) {
+            return quantized;
+        }
+        float scale = 127 / maxAbs;
+        for (int i = 0; i < vector.length; i++) {
+            quantized[i] = (byte) Math.round(vector[i] * scale);
+        }
+        return quantized;
+    }
+
+    public static int dot(byte[] a, byte[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    public static float norm(byte[] vector) {
+        return (float) Math.sqrt(dot(vector, vector));
+    }
+}
@@ -0,0 +1,137 @@
+package com.helpdesk.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds the JSON object or array in free-form model output: leading chatter, markdown code
+ * fences and trailing remarks are skipped. One scan over the response pairs up brackets, ignoring
+ * those inside JSON strings, and yields every balanced span as a candidate. Outermost candidates of the
+ * expected root type are tried first, larger ones before smaller ones, so a reference such as "see [2]"
+ * in the chatter never wins over the actual answer; nested spans are only tried when no outermost one parses.
+ * Each candidate is parsed in place by the Jackson streaming parser without copying a substring; output cut
+ * off mid-value yields nothing rather than a fragment of it.
+ */
+public final class JsonExtractor {
+
+    private JsonExtractor() {
+    }
+
+    /**
+     * @param objectMapper Mapper used to build the tree
+     * @param text Model output, possibly wrapped in prose or a code fence
+     * @return The largest complete JSON object or array in the text, or null when there is none
+     */
+    public static JsonNode extract(ObjectMapper objectMapper, String text) {
+        return extract(objectMapper, text, null);
+    }
+
+    /**
+     * @param objectMapper Mapper used to build the tree
+     * @param text Model output, possibly wrapped in prose or a code fence
+     * @param expectedRoot {@link JsonNodeType#OBJECT} or {@link JsonNodeType#ARRAY} to prefer that root type, or null
+     * @return The largest complete JSON container of the expected type, else the largest of the other type,
+     *         or null when there is none
+     */
+    public static JsonNode extract(ObjectMapper objectMapper, String text, JsonNodeType expectedRoot) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+
+        char[] chars = text.toCharArray();
+        char expectedOpener = expectedRoot == JsonNodeType.ARRAY ? '[' : expectedRoot == JsonNodeType.OBJECT ? '{' : 0;
+        List<Span> candidates = balancedSpans(objectMapper, chars);
+        candidates.sort(Comparator.comparing(Span::nested)
+                .thenComparing((Span span) -> chars[span.start()] != expectedOpener)
+                .thenComparing(Comparator.comparingInt(Span::length).reversed())
+                .thenComparingInt(Span::start));
+
+        for (Span span : candidates) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(chars, span.start(), span.length())) {
+                JsonToken first = parser.nextToken();
+                if (first != JsonToken.START_OBJECT && first != JsonToken.START_ARRAY) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                if (node != null && node.isContainerNode()) {
+                    return node;
+                }
+            } catch (IOException e) {
+                // Bracketed prose rather than JSON, try the next candidate
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pairs up brackets in one pass. Quotes only delimit strings inside brackets, so apostrophes and quotes
+     * in the surrounding prose do not matter; a closing bracket that does not match abandons the open ones.
+     * Spans inside a value that was cut off are dropped.
+     */
+    private static List<Span> balancedSpans(ObjectMapper objectMapper, char[] chars) {
+        List<Span> spans = new ArrayList<>();
+        Deque<Integer> open = new ArrayDeque<>();
+        boolean inString = false;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '{' || c == '[') {
+                open.push(i);
+            } else if (c == '}' || c == ']') {
+                if (!open.isEmpty() && chars[open.peek()] == (c == '}' ? '{' : '[')) {
+                    int start = open.pop();
+                    spans.add(new Span(start, i + 1 - start, !open.isEmpty()));
+                } else {
+                    open.clear();
+                }
+            } else if (c == '"' && !open.isEmpty()) {
+                inString = true;
+            }
+        }
+
+        // Outermost first: the first unclosed bracket that starts a truncated value cuts off everything after it
+        for (int start : (Iterable<Integer>) open::descendingIterator) {
+            if (isTruncatedValue(objectMapper, chars, start)) {
+                spans.removeIf(span -> span.start() > start);
+                break;
+            }
+        }
+        return spans;
+    }
+
+    private static boolean isTruncatedValue(ObjectMapper objectMapper, char[] chars, int start) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(chars, start, chars.length - start)) {
+            parser.skipChildren();
+            while (parser.nextToken() != null) {
+                parser.skipChildren();
+            }
+            return false;
+        } catch (JsonEOFException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param nested Whether the span lies inside another bracket
+     */
+    private record Span(int start, int length, boolean nested) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.helpdesk.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * RAKE keyphrase extraction: stop words and punctuation split the text into candidate phrases, each word is
+ * scored by its degree (co-occurrence within phrases) over its frequency, and a phrase scores the sum of
+ * its words. Word scores are multiplied by a caller-supplied weight, typically the word's IDF in the
+ * corpus being searched, so words common to every document sink. Runs in microseconds, without a model.
+ */
+public final class KeyphraseExtractor {
+
+    private static final int MAX_PHRASE_WORDS = 3;
+
+    /**
+     * Words that split phrases in ticket text on top of {@link TextTokenizer#STOP_WORDS}: auxiliaries,
+     * time fillers and the generic vocabulary of every support request
+     */
+    private static final Set<String> PHRASE_DELIMITERS = Set.of(
+            "did", "didnt", "doesnt", "since", "after", "before", "again", "still", "now", "today", "yesterday",
+            "morning", "some", "more", "than", "too", "very", "says", "said", "shows", "tried", "trying", "keeps",
+            "help", "need", "needs", "issue", "problem", "thanks", "thank", "anyone", "someone");
+
+    private KeyphraseExtractor() {
+    }
+
+    /**
+     * @param text Text to extract from, may be null
+     * @param limit Maximum number of phrases
+     * @param wordWeight Weight of a word, e.g. its IDF; 1 for plain RAKE
+     * @return Distinct keyphrases, best first
+     */
+    public static List<String> extract(String text, int limit, ToDoubleFunction<String> wordWeight) {
+        List<List<String>> phrases = candidatePhrases(text);
+        if (phrases.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<String, Integer> frequency = new HashMap<>();
+        Map<String, Integer> degree = new HashMap<>();
+        for (List<String> phrase : phrases) {
+            for (String word : phrase) {
+                frequency.merge(word, 1, Integer::sum);
+                degree.merge(word, phrase.size(), Integer::sum);
+            }
+        }
+
+        Map<String, Double> phraseScores = new LinkedHashMap<>();
+        for (List<String> phrase : phrases) {
+            double score = 0;
+            for (String word : phrase) {
+                score += (double) degree.get(word) / frequency.get(word) * wordWeight.applyAsDouble(word);
+            }
+            phraseScores.merge(String.join(" ", phrase), score, Math::max);
+        }
+
+        return phraseScores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Runs of content words between stop words and punctuation, split after {@value #MAX_PHRASE_WORDS} words
+     */
+    private static List<List<String>> candidatePhrases(String text) {
+        List<List<String>> phrases = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return phrases;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> phrase = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : '.';
+            if (Character.isLetterOrDigit(c) || (c == '\'' && start >= 0)) {
+                if (start < 0) {
+                    start = i;
+                }
+                continue;
+            }
+            if (start >= 0) {
+                String word = lower.substring(start, i).replace("'", "");
+                start = -1;
+                if (word.length() > 1 && !TextTokenizer.STOP_WORDS.contains(word) && !PHRASE_DELIMITERS.contains(word)) {
+                    phrase.add(word);
+                    if (phrase.size() == MAX_PHRASE_WORDS) {
+                        phrase = endPhrase(phrases, phrase);
+                    }
+                } else {
+                    phrase = endPhrase(phrases, phrase);
+                }
+            }
+            // Whitespace joins words into a phrase, any other separator ends it
+            if (!Character.isWhitespace(c)) {
+                phrase = endPhrase(phrases, phrase);
+            }
+        }
+        return phrases;
+    }
+
+    private static List<String> endPhrase(List<List<String>> phrases, List<String> phrase) {
+        if (phrase.isEmpty()) {
+            return phrase;
+        }
+        phrases.add(phrase);
+        return new ArrayList<>();
+    }
+}
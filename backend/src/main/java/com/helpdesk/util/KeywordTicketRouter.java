@@ -0,0 +1,61 @@
+package com.helpdesk.util;
+
+import com.helpdesk.model.Profile;
+import com.helpdesk.model.Ticket;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Last routing tier: simple keyword matching. Needs no model and no network, so it also provides
+ * the provisional category of asynchronously routed tickets and the baseline of routing evaluations.
+ */
+public final class KeywordTicketRouter {
+
+    private KeywordTicketRouter() {
+    }
+
+    /**
+     * @param title Ticket title
+     * @param description Ticket description
+     * @return Map containing department, confidence score, and reasoning
+     */
+    public static Map<String, Object> route(String title, String description) {
+        String combinedText = (title + " " + description).toLowerCase(Locale.ROOT);
+
+        Map<String, Object> result = new HashMap<>();
+
+        if (combinedText.contains("computer") ||
+            combinedText.contains("laptop") ||
+            combinedText.contains("software") ||
+            combinedText.contains("password") ||
+            combinedText.contains("network") ||
+            combinedText.contains("internet")) {
+
+            result.put("department", Profile.Department.IT);
+            result.put("confidenceScore", new BigDecimal("0.85"));
+            result.put("reasoning", "Contains IT-related keywords like computer, software, network");
+
+        } else if (combinedText.contains("salary") ||
+                  combinedText.contains("leave") ||
+                  combinedText.contains("vacation") ||
+                  combinedText.contains("benefits") ||
+                  combinedText.contains("hr") ||
+                  combinedText.contains("payroll")) {
+
+            result.put("department", Profile.Department.HR);
+            result.put("confidenceScore", new BigDecimal("0.90"));
+            result.put("reasoning", "Contains HR-related keywords like salary, leave, benefits");
+
+        } else {
+            result.put("department", Profile.Department.ADMIN);
+            result.put("confidenceScore", new BigDecimal("0.70"));
+            result.put("reasoning", "No specific department keywords found, routing to Admin as default");
+        }
+        result.put("source", Ticket.RoutingSource.KEYWORD);
+
+        return result;
+    }
+}
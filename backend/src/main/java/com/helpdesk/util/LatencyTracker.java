@@ -0,0 +1,46 @@
+package com.helpdesk.util;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples of one kind of call in a fixed ring and answers
+ * percentile queries over them. Old samples drop out as new ones arrive, so percentiles
+ * follow the current behaviour of the upstream service.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param quantile Quantile between 0 and 1, e.g. 0.9 for p90
+     * @return Latency at the quantile using the nearest-rank method, or -1 without samples
+     */
+    public long percentile(double quantile) {
+        long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,85 @@
+package com.helpdesk.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally parses a JSON array of strings that arrives in arbitrary text chunks,
+ * returning each string as soon as its closing quote has been received.
+ * Anything before the opening bracket (chatter, a code fence) and after the closing
+ * bracket is ignored. Not thread-safe; feed chunks in order from one stream.
+ */
+public class StreamingStringArrayParser {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private StringBuilder preamble = new StringBuilder();
+    private int depth;
+    private boolean finished;
+
+    public StreamingStringArrayParser(JsonFactory jsonFactory) {
+        try {
+            parser = jsonFactory.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create non-blocking JSON parser", e);
+        }
+        feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * @param chunk Next piece of the streamed text
+     * @return Top-level array strings completed by this chunk, in order
+     */
+    public List<String> feed(String chunk) {
+        List<String> completed = new ArrayList<>();
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return completed;
+        }
+
+        String input = chunk;
+        if (preamble != null) {
+            preamble.append(chunk);
+            int arrayStart = preamble.indexOf("[");
+            if (arrayStart < 0) {
+                return completed;
+            }
+            input = preamble.substring(arrayStart);
+            preamble = null;
+        }
+
+        try {
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            feeder.feedInput(bytes, 0, bytes.length);
+
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                    depth++;
+                } else if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT) {
+                    depth--;
+                    finished = depth == 0;
+                } else if (token == JsonToken.VALUE_STRING && depth == 1) {
+                    completed.add(parser.getText());
+                }
+            }
+        } catch (IOException e) {
+            // Malformed output: keep what was parsed so far and ignore the rest
+            finished = true;
+        }
+        return completed;
+    }
+
+    /**
+     * @return true once the closing bracket of the array has been seen or the input turned out malformed
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+}
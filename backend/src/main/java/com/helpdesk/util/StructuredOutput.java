@@ -0,0 +1,71 @@
+package com.helpdesk.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed structured output of a Gemini task: the {@code responseSchema} sent in the
+ * {@code generationConfig} and the Java type the returned JSON is bound to.
+ * Schemas use the OpenAPI subset understood by Gemini; the static helpers keep them compact.
+ *
+ * @param name Short name of the output, also part of the single-flight key
+ * @param schema Gemini response schema
+ * @param type Java type the response is bound to
+ * @param <T> Response type
+ */
+public record StructuredOutput<T>(String name, Map<String, Object> schema, TypeReference<T> type) {
+
+    public static Map<String, Object> string(String description) {
+        return Map.of("type", "STRING", "description", description);
+    }
+
+    public static Map<String, Object> enumeration(String description, List<String> values) {
+        return Map.of("type", "STRING", "description", description, "enum", values);
+    }
+
+    public static Map<String, Object> number(String description) {
+        return Map.of("type", "NUMBER", "description", description);
+    }
+
+    public static Map<String, Object> integer(String description) {
+        return Map.of("type", "INTEGER", "description", description);
+    }
+
+    public static Map<String, Object> bool(String description) {
+        return Map.of("type", "BOOLEAN", "description", description);
+    }
+
+    public static Map<String, Object> array(Map<String, Object> items, String description) {
+        return Map.of("type", "ARRAY", "description", description, "items", items);
+    }
+
+    /**
+     * @param properties Property schemas in the order Gemini should generate them
+     * @param required Names of the properties that must always be present
+     * @return Object schema with an explicit property ordering
+     */
+    public static Map<String, Object> object(Map<String, Map<String, Object>> properties, List<String> required) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "OBJECT");
+        schema.put("properties", properties);
+        schema.put("required", required);
+        schema.put("propertyOrdering", new ArrayList<>(properties.keySet()));
+        return schema;
+    }
+
+    /**
+     * Ordered property map, as {@code Map.of} would lose the ordering
+     */
+    @SafeVarargs
+    public static Map<String, Map<String, Object>> properties(Map.Entry<String, Map<String, Object>>... entries) {
+        Map<String, Map<String, Object>> properties = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : entries) {
+            properties.put(entry.getKey(), entry.getValue());
+        }
+        return properties;
+    }
+}
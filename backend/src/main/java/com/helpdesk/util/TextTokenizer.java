@@ -0,0 +1,68 @@
+package com.helpdesk.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lightweight tokenizer shared by the in-process text models.
+ * Lowercases, splits on anything that is not a letter or digit and drops stop words.
+ */
+public final class TextTokenizer {
+
+    public static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "been", "but", "by", "can", "could", "do", "does",
+            "for", "from", "had", "has", "have", "hello", "hi", "i", "if", "in", "into", "is", "it", "its",
+            "me", "my", "no", "not", "of", "on", "or", "our", "please", "so", "that", "the", "their", "them",
+            "then", "there", "this", "to", "us", "was", "we", "were", "what", "when", "which", "will", "with",
+            "would", "you", "your", "am", "any", "all", "also", "just", "get", "got", "im", "dont", "cant");
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * @param text Text to tokenize, may be null
+     * @return Lowercase word tokens without stop words, in text order
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                // Skip apostrophes inside words ("can't" -> "cant")
+                if (i < lower.length() - 1 && lower.charAt(i) == '\'' && Character.isLetter(lower.charAt(i + 1))) {
+                    continue;
+                }
+                String token = lower.substring(start, i).replace("'", "");
+                if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @param text Text to tokenize, may be null
+     * @return Unigrams followed by bigrams of adjacent tokens ("vpn", "down", "vpn down")
+     */
+    public static List<String> terms(String text) {
+        List<String> tokens = tokenize(text);
+        List<String> terms = new ArrayList<>(tokens.size() * 2);
+        terms.addAll(tokens);
+        for (int i = 1; i < tokens.size(); i++) {
+            terms.add(tokens.get(i - 1) + " " + tokens.get(i));
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,45 @@
+package com.helpdesk.util;
+
+/**
+ * Cheap token estimates for prompt budgeting, without calling a tokenizer.
+ */
+public final class TokenEstimator {
+
+    /**
+     * Gemini averages roughly four characters of English text per token
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * @param text Text to estimate, may be null
+     * @return Approximate number of tokens the text costs in a prompt
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Cuts the text to roughly {@code maxTokens}, at a word boundary where possible
+     *
+     * @param text Text to shorten, may be null
+     * @param maxTokens Token budget
+     * @return The text itself when it fits, otherwise its head followed by an ellipsis
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || estimate(text) <= maxTokens) {
+            return text;
+        }
+        int maxChars = Math.max(0, maxTokens * CHARS_PER_TOKEN - 1);
+        int cut = text.lastIndexOf(' ', maxChars);
+        if (cut < maxChars / 2) {
+            cut = maxChars;
+        }
+        return text.substring(0, cut).stripTrailing() + "…";
+    }
+}
@@ -0,0 +1,301 @@
+package com.helpdesk.evaluation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.helpdesk.model.Profile;
+import com.helpdesk.service.dto.RoutingDecision;
+import com.helpdesk.util.HashedNaiveBayesModel;
+import com.helpdesk.util.JsonExtractor;
+import com.helpdesk.util.KeywordTicketRouter;
+import com.helpdesk.util.LatencyTracker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline replay of historical tickets through the routing tiers. Each ticket of the fixture is routed by
+ * every tier and the chosen department is compared with the ticket's final {@code category}.
+ * Per tier it reports accuracy, p50/p95/p99 latency and Gemini calls per ticket.
+ * <ul>
+ *   <li>keyword: {@link KeywordTicketRouter}</li>
+ *   <li>local: {@link HashedNaiveBayesModel}, k-fold cross-validated so no ticket is scored by a model trained on it</li>
+ *   <li>gemini: the response recorded for the ticket, parsed the way the live client parses it;
+ *       its latency is the recorded latency plus the measured parsing time</li>
+ *   <li>cascade: local classifier above the confidence threshold, then Gemini, then keywords, as in
+ *       {@code AIService.routeTicketAsync} without the cache, batching and hedging. As in {@code TicketClassifier},
+ *       a fold's model only takes part when it passes the held-out precision check on its own training tickets.</li>
+ * </ul>
+ * Lives with the test sources so neither it nor the fixture ships in the application jar.
+ * Runs without Spring, MongoDB or network:
+ * {@code mvn -q -P routing-evaluation test-compile exec:java [-Dexec.args="fixture.json 0.9"]}.
+ * Without a path the bundled {@code evaluation/routing-fixture.json} is replayed.
+ */
+public final class RoutingEvaluation {
+
+    private static final String DEFAULT_FIXTURE = "evaluation/routing-fixture.json";
+    private static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.9;
+    private static final int FOLDS = 5;
+    private static final int HASH_BITS = 16;
+    private static final double MIN_PRECISION = 0.95;
+    private static final int MIN_HELD_OUT_ANSWERS = 20;
+
+    private final ObjectMapper objectMapper;
+    private final double confidenceThreshold;
+
+    public RoutingEvaluation(ObjectMapper objectMapper, double confidenceThreshold) {
+        this.objectMapper = objectMapper;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        double threshold = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_CONFIDENCE_THRESHOLD;
+
+        List<FixtureTicket> tickets = args.length > 0 ? load(objectMapper, Path.of(args[0])) : loadDefault(objectMapper);
+        List<TierReport> reports = new RoutingEvaluation(objectMapper, threshold).evaluate(tickets);
+
+        System.out.printf("Replayed %d tickets, local confidence threshold %.2f%n%n", tickets.size(), threshold);
+        System.out.printf("%-8s %9s %9s %10s %10s %10s %14s%n",
+                "tier", "accuracy", "answered", "p50 ms", "p95 ms", "p99 ms", "calls/ticket");
+        for (TierReport report : reports) {
+            System.out.printf("%-8s %8.1f%% %8.1f%% %10.3f %10.3f %10.3f %14.2f%n",
+                    report.tier(), report.accuracy() * 100, report.answeredRate() * 100,
+                    report.p50Micros() / 1000.0, report.p95Micros() / 1000.0, report.p99Micros() / 1000.0,
+                    report.callsPerTicket());
+        }
+    }
+
+    public static List<FixtureTicket> load(ObjectMapper objectMapper, Path path) throws IOException {
+        return objectMapper.readValue(Files.readAllBytes(path), new TypeReference<>() {});
+    }
+
+    public static List<FixtureTicket> loadDefault(ObjectMapper objectMapper) throws IOException {
+        try (InputStream in = RoutingEvaluation.class.getClassLoader().getResourceAsStream(DEFAULT_FIXTURE)) {
+            if (in == null) {
+                throw new IOException("Fixture " + DEFAULT_FIXTURE + " not found on the classpath");
+            }
+            return objectMapper.readValue(in, new TypeReference<>() {});
+        }
+    }
+
+    /**
+     * @param tickets Historical tickets; tickets without a category cannot be scored and are skipped
+     * @return One report per tier, cheapest tier first
+     */
+    public List<TierReport> evaluate(List<FixtureTicket> tickets) {
+        List<FixtureTicket> labelled = tickets.stream()
+                .filter(ticket -> ticket.category() != null && ticket.title() != null)
+                .toList();
+        HashedNaiveBayesModel[] models = new HashedNaiveBayesModel[FOLDS];
+        boolean[] live = new boolean[FOLDS];
+        trainFolds(labelled, models, live);
+
+        TierRun keyword = new TierRun("keyword", labelled.size());
+        TierRun local = new TierRun("local", labelled.size());
+        TierRun gemini = new TierRun("gemini", labelled.size());
+        TierRun cascade = new TierRun("cascade", labelled.size());
+
+        for (int i = 0; i < labelled.size(); i++) {
+            FixtureTicket ticket = labelled.get(i);
+            HashedNaiveBayesModel model = models[i % FOLDS];
+
+            keyword.record(ticket, routeByKeyword(ticket));
+            Outcome localOutcome = routeLocally(ticket, model);
+            local.record(ticket, localOutcome);
+            Outcome geminiOutcome = routeByGemini(ticket);
+            gemini.record(ticket, geminiOutcome);
+            Outcome cascadeLocal = live[i % FOLDS] ? localOutcome : new Outcome(null, 0, 0, 0);
+            cascade.record(ticket, routeByCascade(ticket, cascadeLocal, geminiOutcome));
+        }
+        return List.of(keyword.report(), local.report(), gemini.report(), cascade.report());
+    }
+
+    /**
+     * One model per fold, each trained on the tickets of all other folds, and whether the live classifier
+     * would put it in service
+     */
+    private void trainFolds(List<FixtureTicket> tickets, HashedNaiveBayesModel[] models, boolean[] live) {
+        for (int fold = 0; fold < FOLDS; fold++) {
+            List<String> texts = new ArrayList<>();
+            List<Profile.Department> labels = new ArrayList<>();
+            for (int i = 0; i < tickets.size(); i++) {
+                if (i % FOLDS != fold) {
+                    texts.add(tickets.get(i).text());
+                    labels.add(tickets.get(i).category());
+                }
+            }
+            if (labels.stream().distinct().count() >= 2) {
+                models[fold] = HashedNaiveBayesModel.train(texts, labels, HASH_BITS);
+                HashedNaiveBayesModel.HeldOutPrecision heldOut =
+                        HashedNaiveBayesModel.heldOutPrecision(texts, labels, HASH_BITS, confidenceThreshold);
+                live[fold] = heldOut.answered() >= MIN_HELD_OUT_ANSWERS && heldOut.precision() >= MIN_PRECISION;
+            }
+        }
+    }
+
+    private Outcome routeByKeyword(FixtureTicket ticket) {
+        long start = System.nanoTime();
+        Object department = KeywordTicketRouter.route(ticket.title(), ticket.description()).get("department");
+        return new Outcome((Profile.Department) department, 1.0, micros(start), 0);
+    }
+
+    /**
+     * Raw model prediction; whether the live classifier would answer is decided by the cascade
+     */
+    private Outcome routeLocally(FixtureTicket ticket, HashedNaiveBayesModel model) {
+        if (model == null) {
+            return new Outcome(null, 0, 0, 0);
+        }
+        long start = System.nanoTime();
+        HashedNaiveBayesModel.Prediction prediction = model.predict(ticket.text());
+        return new Outcome(prediction.department(), prediction.probability(), micros(start), 0);
+    }
+
+    /**
+     * Stub responder: replays the recorded response and parses it like {@code GeminiApiClient} does,
+     * including prose or code fences around the JSON. A missing response is a failed call.
+     */
+    private Outcome routeByGemini(FixtureTicket ticket) {
+        RecordedCall call = ticket.gemini();
+        if (call == null) {
+            return new Outcome(null, 0, 0, 0);
+        }
+        long start = System.nanoTime();
+        Profile.Department department = null;
+        double confidence = 0;
+        if (call.response() != null) {
+            RoutingDecision decision = parse(call.response());
+            if (decision != null) {
+                department = toDepartment(decision.getDepartment());
+                confidence = decision.getConfidenceScore() != null ? decision.getConfidenceScore() : 0;
+            }
+        }
+        return new Outcome(department, confidence, call.latencyMs() * 1000 + micros(start), 1);
+    }
+
+    private Outcome routeByCascade(FixtureTicket ticket, Outcome local, Outcome gemini) {
+        if (local.department() != null && local.confidence() >= confidenceThreshold) {
+            return local;
+        }
+        if (gemini.department() != null) {
+            return new Outcome(gemini.department(), gemini.confidence(), local.latencyMicros() + gemini.latencyMicros(), 1);
+        }
+        Outcome keyword = routeByKeyword(ticket);
+        return new Outcome(keyword.department(), keyword.confidence(),
+                local.latencyMicros() + gemini.latencyMicros() + keyword.latencyMicros(), gemini.geminiCalls());
+    }
+
+    private RoutingDecision parse(String response) {
+        try {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(response);
+            } catch (IOException e) {
+                node = JsonExtractor.extract(objectMapper, response, JsonNodeType.OBJECT);
+            }
+            return node != null && node.isObject() ? objectMapper.treeToValue(node, RoutingDecision.class) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Same rule as the live routing: an unknown department is routed to ADMIN
+     */
+    private static Profile.Department toDepartment(String department) {
+        try {
+            return Profile.Department.valueOf(String.valueOf(department));
+        } catch (IllegalArgumentException e) {
+            return Profile.Department.ADMIN;
+        }
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    /**
+     * Historical ticket as exported from the {@code tickets} collection, plus the Gemini routing
+     * response recorded for it; other ticket fields in the export are ignored
+     *
+     * @param gemini Recorded routing call, or null when none was recorded
+     */
+    public record FixtureTicket(String id, String title, String description, Profile.Department category,
+                                RecordedCall gemini) {
+
+        String text() {
+            return title + " " + (description != null ? description : "");
+        }
+    }
+
+    /**
+     * @param response Raw text Gemini answered with, or null when the call failed
+     * @param latencyMs Observed latency of the call
+     */
+    public record RecordedCall(String response, long latencyMs) {
+    }
+
+    public record TierReport(String tier, int tickets, int answered, int correct, int geminiCalls,
+                             long p50Micros, long p95Micros, long p99Micros) {
+
+        /**
+         * Unanswered tickets count as misrouted
+         */
+        public double accuracy() {
+            return tickets == 0 ? 0 : (double) correct / tickets;
+        }
+
+        public double answeredRate() {
+            return tickets == 0 ? 0 : (double) answered / tickets;
+        }
+
+        public double callsPerTicket() {
+            return tickets == 0 ? 0 : (double) geminiCalls / tickets;
+        }
+    }
+
+    private record Outcome(Profile.Department department, double confidence, long latencyMicros, int geminiCalls) {
+    }
+
+    private static final class TierRun {
+        private final String tier;
+        private final LatencyTracker latencies;
+        private int tickets;
+        private int answered;
+        private int correct;
+        private int geminiCalls;
+
+        private TierRun(String tier, int capacity) {
+            this.tier = tier;
+            this.latencies = new LatencyTracker(Math.max(1, capacity));
+        }
+
+        private void record(FixtureTicket ticket, Outcome outcome) {
+            tickets++;
+            geminiCalls += outcome.geminiCalls();
+            if (outcome.department() == null) {
+                return;
+            }
+            answered++;
+            latencies.record(outcome.latencyMicros());
+            if (outcome.department() == ticket.category()) {
+                correct++;
+            }
+        }
+
+        private TierReport report() {
+            return new TierReport(tier, tickets, answered, correct, geminiCalls,
+                    Math.max(0, latencies.percentile(0.5)),
+                    Math.max(0, latencies.percentile(0.95)),
+                    Math.max(0, latencies.percentile(0.99)));
+        }
+    }
+}